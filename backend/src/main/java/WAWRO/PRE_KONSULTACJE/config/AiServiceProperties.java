@@ -0,0 +1,52 @@
+package WAWRO.PRE_KONSULTACJE.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "ai-service")
+public class AiServiceProperties {
+
+    private String url;
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration responseTimeout = Duration.ofSeconds(10);
+    private Duration callTimeout = Duration.ofSeconds(15);
+    // Summaries are generated by an LLM and take far longer than a moderation verdict.
+    private Duration summaryTimeout = Duration.ofSeconds(90);
+    private int maxConnections = 50;
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+    private int maxConcurrentCalls = 32;
+    private final VerdictCache verdictCache = new VerdictCache();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private final Summary summary = new Summary();
+
+    @Getter
+    @Setter
+    public static class VerdictCache {
+        private long maxSize = 100_000;
+        private Duration ttl = Duration.ofHours(24);
+    }
+
+    // Summaries get a bulkhead and circuit breaker of their own, so slow LLM calls can neither
+    // starve moderation of permits nor open the breaker that moderation depends on.
+    @Getter
+    @Setter
+    public static class Summary {
+        private int maxConcurrentCalls = 4;
+        private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+    }
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        private int failureRateThreshold = 50;
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenPermits = 3;
+    }
+}
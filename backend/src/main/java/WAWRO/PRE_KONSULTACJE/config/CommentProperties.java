@@ -0,0 +1,40 @@
+package WAWRO.PRE_KONSULTACJE.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.comments")
+public class CommentProperties {
+
+    private int defaultPageSize = 50;
+    private int maxPageSize = 200;
+    private int importBatchSize = 500;
+    // Longer NDJSON lines are rejected without being read into memory.
+    private int importMaxLineLength = 64 * 1024;
+    private long analogUserCacheSize = 100_000;
+    private int exportFetchSize = 1_000;
+    private int searchMinQueryLength = 2;
+    private final Stream stream = new Stream();
+
+    public int resolvePageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(requested, maxPageSize);
+    }
+
+    @Getter
+    @Setter
+    public static class Stream {
+        private Duration timeout = Duration.ofMinutes(30);
+        private int subscriberQueueCapacity = 64;
+        private Duration heartbeat = Duration.ofSeconds(15);
+        private Duration approvalFlushInterval = Duration.ofMillis(500);
+        private Duration changeFlushInterval = Duration.ofMillis(200);
+    }
+}
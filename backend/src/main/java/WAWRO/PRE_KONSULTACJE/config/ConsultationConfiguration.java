@@ -0,0 +1,9 @@
+package WAWRO.PRE_KONSULTACJE.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ConsultationProperties.class)
+public class ConsultationConfiguration {
+}
@@ -0,0 +1,22 @@
+package WAWRO.PRE_KONSULTACJE.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.consultations")
+public class ConsultationProperties {
+
+    private final DetailCache detailCache = new DetailCache();
+
+    @Getter
+    @Setter
+    public static class DetailCache {
+        private long maxSize = 1_000;
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+}
@@ -0,0 +1,11 @@
+package WAWRO.PRE_KONSULTACJE.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties({ModerationProperties.class, AiServiceProperties.class})
+public class ModerationConfiguration {
+}
@@ -0,0 +1,24 @@
+package WAWRO.PRE_KONSULTACJE.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.moderation")
+public class ModerationProperties {
+
+    private int queueCapacity = 10_000;
+    private int batchSize = 20;
+    private int workers = 2;
+    private int aiConcurrency = 4;
+    private Duration pollTimeout = Duration.ofSeconds(1);
+    private Duration sweepDelay = Duration.ofMinutes(1);
+    private int sweepLimit = 1_000;
+    private Duration reviewLeaseDuration = Duration.ofMinutes(10);
+    private int reviewClaimSize = 20;
+    private int maxReviewClaimSize = 100;
+}
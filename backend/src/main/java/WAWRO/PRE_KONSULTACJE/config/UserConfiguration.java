@@ -0,0 +1,24 @@
+package WAWRO.PRE_KONSULTACJE.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(UserProperties.class)
+public class UserConfiguration {
+
+    static final String LOAD_TEST_PROFILE = "loadtest";
+
+    // The subject header lets any caller pick their identity: refuse to start with it anywhere but a bare load test.
+    public UserConfiguration(UserProperties userProperties, Environment environment) {
+        String header = userProperties.getSubjectHeader();
+        List<String> profiles = List.of(environment.getActiveProfiles());
+        if (header != null && !header.isBlank() && !profiles.equals(List.of(LOAD_TEST_PROFILE))) {
+            throw new IllegalStateException("app.users.subject-header (" + header + ") is only allowed with the '"
+                    + LOAD_TEST_PROFILE + "' profile alone, active profiles: " + profiles);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package WAWRO.PRE_KONSULTACJE.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.users")
+public class UserProperties {
+
+    // Subject used until requests carry a token.
+    private String devSubject = "testowy@test.pl";
+    // Load tests only (see application-loadtest.yml): lets a request name its own subject.
+    // UserConfiguration refuses to start when it is set outside the loadtest profile.
+    private String subjectHeader;
+    private long identityCacheSize = 10_000;
+    private Duration identityCacheTtl = Duration.ofMinutes(15);
+}
@@ -2,12 +2,19 @@ package WAWRO.PRE_KONSULTACJE.controller;
 
 import WAWRO.PRE_KONSULTACJE.model.dto.CommentCreateAnalogDTO;
 import WAWRO.PRE_KONSULTACJE.model.dto.CommentDTO;
+import WAWRO.PRE_KONSULTACJE.service.AnalogCommentImportService;
 import WAWRO.PRE_KONSULTACJE.service.CommentService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
 //todo use envelo solutions to scanning letters
 @RestController
 @RequestMapping("/api/v1/pre-consultations/analog/{consultationId}/comments")
@@ -15,6 +22,7 @@ import org.springframework.web.bind.annotation.*;
 public class AnalogUserController {
 
     private final CommentService commentService;
+    private final AnalogCommentImportService importService;
 
     @PostMapping
     public ResponseEntity<CommentDTO> create(@PathVariable Long consultationId,
@@ -24,4 +32,13 @@ public class AnalogUserController {
         return new ResponseEntity<>(newComment, HttpStatus.CREATED);
     }
 
+    @PostMapping(path = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void bulkCreate(@PathVariable Long consultationId,
+                           HttpServletRequest request,
+                           HttpServletResponse response) throws IOException {
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        importService.importComments(consultationId, request.getInputStream(), response.getOutputStream());
+    }
 }
@@ -1,15 +1,29 @@
 package WAWRO.PRE_KONSULTACJE.controller;
 
 
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentClusterDTO;
 import WAWRO.PRE_KONSULTACJE.model.dto.CommentCreateDTO;
 import WAWRO.PRE_KONSULTACJE.model.dto.CommentDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentPageDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.PageDTO;
+import WAWRO.PRE_KONSULTACJE.model.enums.ExportFormat;
+import WAWRO.PRE_KONSULTACJE.service.CommentExportService;
 import WAWRO.PRE_KONSULTACJE.service.CommentService;
+import WAWRO.PRE_KONSULTACJE.service.CommentStreamHub;
+import WAWRO.PRE_KONSULTACJE.service.ConsultationVersionTracker;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
 
 @RestController
 @RequestMapping("/api/v1/pre-consultations/{consultationId}/comments")
@@ -17,6 +31,9 @@ import java.util.List;
 public class CommentController {
 
     private final CommentService commentService;
+    private final ConsultationVersionTracker versionTracker;
+    private final CommentStreamHub commentStreamHub;
+    private final CommentExportService commentExportService;
 
     @PostMapping
     public ResponseEntity<CommentDTO> create(@PathVariable Long consultationId,
@@ -28,10 +45,54 @@ public class CommentController {
 
 
     @GetMapping
-    public ResponseEntity<List<CommentDTO>> getAllByConsultation(@PathVariable Long consultationId) {
+    public ResponseEntity<CommentPageDTO> getAllByConsultation(@PathVariable Long consultationId,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer size,
+                                                               WebRequest request) {
 
-        List<CommentDTO> comments = commentService.getActiveCommentsByConsultationId(consultationId);
-        return ResponseEntity.ok(comments);
+        String etag = versionTracker.etag(consultationId);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        CommentPageDTO comments = commentService.getActiveCommentsPage(consultationId, cursor, size);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag)
+                .body(comments);
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable Long consultationId) {
+        return commentStreamHub.subscribe(consultationId);
+    }
+
+    @GetMapping("/clusters")
+    public ResponseEntity<PageDTO<CommentClusterDTO>> getClusters(@PathVariable Long consultationId,
+                                                                  @RequestParam(defaultValue = "2") long minSize,
+                                                                  @RequestParam(defaultValue = "0") int page,
+                                                                  @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(commentService.getClusters(consultationId, minSize, page, size));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable Long consultationId,
+                                                        @RequestParam(defaultValue = "CSV") ExportFormat format,
+                                                        @RequestParam(defaultValue = "false") boolean gzip) {
+
+        StreamingResponseBody body = commentExportService.export(consultationId, format, gzip);
+        String extension = format == ExportFormat.CSV ? "csv" : "ndjson";
+        MediaType contentType = format == ExportFormat.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : MediaType.APPLICATION_NDJSON;
+        String filename = "consultation-" + consultationId + "-comments." + extension;
+        if (gzip) {
+            contentType = MediaType.parseMediaType("application/gzip");
+            filename += ".gz";
+        }
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
     }
 
     @PatchMapping("/{commentId}/block")
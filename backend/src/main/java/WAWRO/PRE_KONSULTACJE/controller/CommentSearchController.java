@@ -0,0 +1,25 @@
+package WAWRO.PRE_KONSULTACJE.controller;
+
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentSearchHitDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.PageDTO;
+import WAWRO.PRE_KONSULTACJE.service.CommentSearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/comments")
+@RequiredArgsConstructor
+public class CommentSearchController {
+
+    private final CommentSearchService commentSearchService;
+
+    @GetMapping("/search")
+    public ResponseEntity<PageDTO<CommentSearchHitDTO>> search(@RequestParam("q") String query,
+                                                               @RequestParam(required = false) Long consultationId,
+                                                               @RequestParam(defaultValue = "false") boolean includeBlocked,
+                                                               @RequestParam(defaultValue = "0") int page,
+                                                               @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(commentSearchService.search(query, consultationId, includeBlocked, page, size));
+    }
+}
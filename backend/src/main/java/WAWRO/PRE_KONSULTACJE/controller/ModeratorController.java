@@ -1,29 +1,66 @@
 package WAWRO.PRE_KONSULTACJE.controller;
 
 import WAWRO.PRE_KONSULTACJE.model.dto.CommentDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.CounterRepairReportDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.PageDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.ReviewLeaseDTO;
+import WAWRO.PRE_KONSULTACJE.service.CommentModerationService;
 import WAWRO.PRE_KONSULTACJE.service.CommentService;
+import WAWRO.PRE_KONSULTACJE.service.CounterRepairService;
+import WAWRO.PRE_KONSULTACJE.service.ReviewQueueService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/pre-consultations/moderator")
 @RequiredArgsConstructor
 public class ModeratorController {
     private final CommentService commentService;
+    private final CommentModerationService commentModerationService;
+    private final CounterRepairService counterRepairService;
+    private final ReviewQueueService reviewQueueService;
 
 
     @GetMapping("/blocked")
-    public ResponseEntity<List<CommentDTO>> getBlockedComments() {
-        List<CommentDTO> comments = commentService.getAllBlockedCommentsSorted();
+    public ResponseEntity<PageDTO<CommentDTO>> getBlockedComments(@RequestParam(defaultValue = "0") int page,
+                                                                  @RequestParam(required = false) Integer size) {
+        PageDTO<CommentDTO> comments = commentService.getBlockedComments(page, size);
         return ResponseEntity.ok(comments);
     }
 
+    @PostMapping("/queue/claim")
+    public ResponseEntity<ReviewLeaseDTO> claimForReview(@RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(reviewQueueService.claim(size));
+    }
+
+    @DeleteMapping("/queue/lease")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void releaseLeases() {
+        reviewQueueService.release();
+    }
+
     @PatchMapping("/{commentId}/unblock")
     public ResponseEntity<CommentDTO> unblockComment(@PathVariable Long commentId) {
-        CommentDTO unblockedComment = commentService.unblockComment(commentId);
+        CommentDTO unblockedComment = reviewQueueService.approve(commentId);
         return ResponseEntity.ok(unblockedComment);
     }
+
+    @PatchMapping("/{commentId}/reject")
+    public ResponseEntity<CommentDTO> rejectComment(@PathVariable Long commentId) {
+        return ResponseEntity.ok(reviewQueueService.reject(commentId));
+    }
+
+    @PostMapping("/{commentId}/moderate")
+    public CompletableFuture<ResponseEntity<CommentDTO>> moderateNow(@PathVariable Long commentId) {
+        return commentModerationService.moderateNow(commentId).thenApply(ResponseEntity::ok);
+    }
+
+    @PostMapping("/counters/repair")
+    public ResponseEntity<CounterRepairReportDTO> repairCounters() {
+        return ResponseEntity.ok(counterRepairService.repair());
+    }
 }
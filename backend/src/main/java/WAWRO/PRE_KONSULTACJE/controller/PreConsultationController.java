@@ -1,14 +1,21 @@
 package WAWRO.PRE_KONSULTACJE.controller;
 
+import WAWRO.PRE_KONSULTACJE.model.dto.PageDTO;
 import WAWRO.PRE_KONSULTACJE.model.dto.PreConsultationCreateDTO;
 import WAWRO.PRE_KONSULTACJE.model.dto.PreConsultationDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.PreConsultationSummaryDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.SummaryDTO;
+import WAWRO.PRE_KONSULTACJE.model.enums.SummaryType;
+import WAWRO.PRE_KONSULTACJE.service.ConsultationVersionTracker;
 import WAWRO.PRE_KONSULTACJE.service.PreConsultationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/pre-consultations")
@@ -16,6 +23,7 @@ import java.util.List;
 public class PreConsultationController {
 
     private final PreConsultationService consultationService;
+    private final ConsultationVersionTracker versionTracker;
 
     @PostMapping
     public ResponseEntity<PreConsultationDTO> create(@RequestBody PreConsultationCreateDTO createDTO) {
@@ -24,15 +32,29 @@ public class PreConsultationController {
     }
 
     @GetMapping
-    public ResponseEntity<List<PreConsultationDTO>> getAll() {
-        List<PreConsultationDTO> consultations = consultationService.getAllConsultations();
+    public ResponseEntity<PageDTO<PreConsultationSummaryDTO>> getAll(@RequestParam(defaultValue = "0") int page,
+                                                                     @RequestParam(defaultValue = "20") Integer size) {
+        PageDTO<PreConsultationSummaryDTO> consultations = consultationService.getAllConsultations(page, size);
         return ResponseEntity.ok(consultations);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<PreConsultationDTO> getById(@PathVariable Long id) {
+    public ResponseEntity<PreConsultationDTO> getById(@PathVariable Long id, WebRequest request) {
+        String etag = versionTracker.etag(id);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         PreConsultationDTO consultation = consultationService.getConsultationById(id);
-        return ResponseEntity.ok(consultation);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag)
+                .body(consultation);
+    }
+
+    @PostMapping("/{id}/summary")
+    public CompletableFuture<ResponseEntity<SummaryDTO>> summarize(@PathVariable Long id,
+                                                                   @RequestParam(defaultValue = "UST") SummaryType type) {
+        return consultationService.summarize(id, type).thenApply(ResponseEntity::ok);
     }
 
     @PutMapping("/{id}")
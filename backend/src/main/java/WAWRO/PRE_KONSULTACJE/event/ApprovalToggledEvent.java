@@ -0,0 +1,9 @@
+package WAWRO.PRE_KONSULTACJE.event;
+
+public record ApprovalToggledEvent(
+        Long consultationId,
+        Long commentId,
+        Long userId,
+        boolean approved
+) {
+}
@@ -0,0 +1,15 @@
+package WAWRO.PRE_KONSULTACJE.event;
+
+public record CommentEvent(
+        Long consultationId,
+        Long commentId,
+        Type type
+) {
+
+    public enum Type {
+        CREATED,
+        MODERATED,
+        BLOCKED,
+        UNBLOCKED
+    }
+}
@@ -0,0 +1,12 @@
+package WAWRO.PRE_KONSULTACJE.event;
+
+public record ConsultationEvent(
+        Long consultationId,
+        Type type
+) {
+
+    public enum Type {
+        UPDATED,
+        DEACTIVATED
+    }
+}
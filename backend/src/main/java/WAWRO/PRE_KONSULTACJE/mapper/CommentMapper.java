@@ -1,13 +1,13 @@
 package WAWRO.PRE_KONSULTACJE.mapper;
 
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentClusterDTO;
 import WAWRO.PRE_KONSULTACJE.model.dto.CommentDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentSearchHitDTO;
 import WAWRO.PRE_KONSULTACJE.model.entity.Comment;
+import WAWRO.PRE_KONSULTACJE.model.projection.CommentClusterView;
+import WAWRO.PRE_KONSULTACJE.model.projection.CommentSearchView;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
-import org.mapstruct.Named;
-
-import java.util.Optional;
-import java.util.Set;
 
 @Mapper(
         componentModel = "spring",
@@ -16,14 +16,13 @@ import java.util.Set;
 public interface CommentMapper {
 
 
-    @Mapping(target = "approvesNumber", source = "approves", qualifiedByName = "mapApprovesNumber")
+    @Mapping(target = "approvesNumber", source = "approvalCount")
+    @Mapping(target = "approvedByMe", ignore = true)
     CommentDTO toDto(Comment comment);
 
-    @Named("mapApprovesNumber")
-    default Long mapApprovesNumber(Set<Long> approves) {
-        return Optional.ofNullable(approves)
-                .map(Set::size)
-                .map(Integer::longValue)
-                .orElse(0L);
-    }
-}
\ No newline at end of file
+    @Mapping(target = "author.firstName", source = "authorFirstName")
+    @Mapping(target = "author.lastName", source = "authorLastName")
+    CommentSearchHitDTO toSearchHitDto(CommentSearchView hit);
+
+    CommentClusterDTO toClusterDto(CommentClusterView cluster);
+}
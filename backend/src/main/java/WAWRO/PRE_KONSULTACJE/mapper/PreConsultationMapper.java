@@ -1,7 +1,9 @@
 package WAWRO.PRE_KONSULTACJE.mapper;
 
 import WAWRO.PRE_KONSULTACJE.model.dto.PreConsultationDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.PreConsultationSummaryDTO;
 import WAWRO.PRE_KONSULTACJE.model.entity.PreConsultation;
+import WAWRO.PRE_KONSULTACJE.model.projection.PreConsultationSummaryView;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -15,9 +17,15 @@ public interface PreConsultationMapper {
     @Mapping(target = "author", source = "author", qualifiedByName = "toAuthorDTO")
     PreConsultationDTO toDto(PreConsultation consultation);
 
+    @Mapping(target = "author.firstName", source = "authorFirstName")
+    @Mapping(target = "author.lastName", source = "authorLastName")
+    PreConsultationSummaryDTO toSummaryDto(PreConsultationSummaryView summary);
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "dateCreated", ignore = true)
     @Mapping(target = "comments", ignore = true)
+    @Mapping(target = "activeCommentCount", ignore = true)
+    @Mapping(target = "blockedCommentCount", ignore = true)
+    @Mapping(target = "approvalCount", ignore = true)
     PreConsultation toEntity(PreConsultationDTO consultationDTO);
 }
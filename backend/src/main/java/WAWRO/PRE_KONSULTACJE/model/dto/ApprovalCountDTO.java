@@ -0,0 +1,7 @@
+package WAWRO.PRE_KONSULTACJE.model.dto;
+
+public record ApprovalCountDTO(
+        Long commentId,
+        long approvesNumber
+) {
+}
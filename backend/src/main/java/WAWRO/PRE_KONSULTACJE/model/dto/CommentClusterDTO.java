@@ -0,0 +1,12 @@
+package WAWRO.PRE_KONSULTACJE.model.dto;
+
+import java.time.LocalDateTime;
+
+public record CommentClusterDTO(
+        Long clusterId,
+        long size,
+        String content,
+        LocalDateTime dateCreated,
+        boolean blocked
+) {
+}
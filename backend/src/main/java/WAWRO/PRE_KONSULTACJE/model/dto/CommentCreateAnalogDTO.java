@@ -8,6 +8,7 @@ public record CommentCreateAnalogDTO(
         @NotBlank(message = "Firstname name cannot be blank")
         String firstName,
         @NotBlank(message = "LastName name cannot be blank")
-        String lastName
+        String lastName,
+        String address
 ) {
 }
@@ -8,6 +8,11 @@ public record CommentDTO(
         LocalDateTime dateCreated,
         Long approvesNumber,
         AuthorDTO author,
-        boolean blocked
+        boolean blocked,
+        boolean approvedByMe
 ) {
+
+    public CommentDTO withApprovals(long approvesNumber, boolean approvedByMe) {
+        return new CommentDTO(id, content, dateCreated, approvesNumber, author, blocked, approvedByMe);
+    }
 }
@@ -0,0 +1,17 @@
+package WAWRO.PRE_KONSULTACJE.model.dto;
+
+import WAWRO.PRE_KONSULTACJE.model.enums.ModerationStatus;
+
+import java.time.LocalDateTime;
+
+public record CommentExportRowDTO(
+        Long id,
+        LocalDateTime dateCreated,
+        String authorFirstName,
+        String authorLastName,
+        String content,
+        long approvesNumber,
+        boolean blocked,
+        ModerationStatus moderationStatus
+) {
+}
@@ -0,0 +1,9 @@
+package WAWRO.PRE_KONSULTACJE.model.dto;
+
+import java.util.List;
+
+public record CommentPageDTO(
+        List<CommentDTO> comments,
+        String nextCursor
+) {
+}
@@ -0,0 +1,15 @@
+package WAWRO.PRE_KONSULTACJE.model.dto;
+
+import java.time.LocalDateTime;
+
+public record CommentSearchHitDTO(
+        Long id,
+        Long consultationId,
+        String consultationSubject,
+        AuthorDTO author,
+        LocalDateTime dateCreated,
+        boolean blocked,
+        float rank,
+        String snippet
+) {
+}
@@ -0,0 +1,12 @@
+package WAWRO.PRE_KONSULTACJE.model.dto;
+
+public record CounterDriftDTO(
+        Long consultationId,
+        long storedActive,
+        long actualActive,
+        long storedBlocked,
+        long actualBlocked,
+        long storedApprovals,
+        long actualApprovals
+) {
+}
@@ -0,0 +1,10 @@
+package WAWRO.PRE_KONSULTACJE.model.dto;
+
+import java.util.List;
+
+public record CounterRepairReportDTO(
+        int commentsRepaired,
+        int consultationsRepaired,
+        List<CounterDriftDTO> drift
+) {
+}
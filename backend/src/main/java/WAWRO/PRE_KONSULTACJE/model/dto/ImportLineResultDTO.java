@@ -0,0 +1,30 @@
+package WAWRO.PRE_KONSULTACJE.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ImportLineResultDTO(
+        long line,
+        Status status,
+        Long commentId,
+        String error
+) {
+
+    public enum Status {
+        CREATED,
+        REJECTED,
+        FAILED
+    }
+
+    public static ImportLineResultDTO created(long line, Long commentId) {
+        return new ImportLineResultDTO(line, Status.CREATED, commentId, null);
+    }
+
+    public static ImportLineResultDTO rejected(long line, String error) {
+        return new ImportLineResultDTO(line, Status.REJECTED, null, error);
+    }
+
+    public static ImportLineResultDTO failed(long line, String error) {
+        return new ImportLineResultDTO(line, Status.FAILED, null, error);
+    }
+}
@@ -0,0 +1,9 @@
+package WAWRO.PRE_KONSULTACJE.model.dto;
+
+public record ImportSummaryDTO(
+        long lines,
+        long created,
+        long rejected,
+        long failed
+) {
+}
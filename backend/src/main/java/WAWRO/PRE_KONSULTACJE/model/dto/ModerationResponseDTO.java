@@ -0,0 +1,6 @@
+package WAWRO.PRE_KONSULTACJE.model.dto;
+
+public record ModerationResponseDTO(
+        String decision
+) {
+}
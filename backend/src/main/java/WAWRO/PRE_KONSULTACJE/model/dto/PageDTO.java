@@ -0,0 +1,23 @@
+package WAWRO.PRE_KONSULTACJE.model.dto;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+public record PageDTO<T>(
+        List<T> content,
+        int page,
+        int size,
+        long totalElements,
+        int totalPages
+) {
+
+    public static <T> PageDTO<T> from(Page<T> page) {
+        return new PageDTO<>(
+                page.getContent(),
+                page.getNumber(),
+                page.getSize(),
+                page.getTotalElements(),
+                page.getTotalPages());
+    }
+}
@@ -0,0 +1,10 @@
+package WAWRO.PRE_KONSULTACJE.model.dto;
+
+public record PreConsultationSummaryDTO(
+        Long id,
+        String subject,
+        AuthorDTO author,
+        long commentCount,
+        long approvalCount
+) {
+}
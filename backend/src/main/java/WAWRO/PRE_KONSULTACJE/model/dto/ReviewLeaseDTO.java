@@ -0,0 +1,10 @@
+package WAWRO.PRE_KONSULTACJE.model.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record ReviewLeaseDTO(
+        List<CommentDTO> comments,
+        LocalDateTime leaseExpiresAt
+) {
+}
@@ -0,0 +1,6 @@
+package WAWRO.PRE_KONSULTACJE.model.dto;
+
+public record SummaryDTO(
+        String summary
+) {
+}
@@ -0,0 +1,9 @@
+package WAWRO.PRE_KONSULTACJE.model.dto;
+
+import WAWRO.PRE_KONSULTACJE.model.enums.SummaryType;
+
+public record SummaryRequestDTO(
+        SummaryType type,
+        String text
+) {
+}
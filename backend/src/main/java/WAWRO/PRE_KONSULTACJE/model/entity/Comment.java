@@ -1,14 +1,22 @@
 package WAWRO.PRE_KONSULTACJE.model.entity;
 
+import WAWRO.PRE_KONSULTACJE.model.enums.ModerationStatus;
+import WAWRO.PRE_KONSULTACJE.utils.SequenceIdAllocator;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.Set;
 
 @Entity
-@Table(name = "comments")
+@Table(
+        name = "comments",
+        indexes = {
+                @Index(name = "idx_comments_moderation_status", columnList = "moderation_status, date_created"),
+                @Index(name = "idx_comments_consultation_keyset", columnList = "pre_consultation_id, blocked, date_created, id"),
+                @Index(name = "idx_comments_cluster_id", columnList = "cluster_id")
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,14 +25,27 @@ import java.util.Set;
 public class Comment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SequenceIdAllocator.COMMENTS_SEQUENCE)
+    @SequenceGenerator(name = SequenceIdAllocator.COMMENTS_SEQUENCE, sequenceName = SequenceIdAllocator.COMMENTS_SEQUENCE,
+            allocationSize = SequenceIdAllocator.ALLOCATION_SIZE)
     private Long id;
 
-    @Lob
+    @Column(columnDefinition = "text")
     private String content;
     private LocalDateTime dateCreated = LocalDateTime.now();
-    private Set<Long> approves = new HashSet<>();
+    // Mirrors the comment_approvals rows; changed only by atomic UPDATEs in CommentRepository.
+    @ColumnDefault("0")
+    @Column(updatable = false)
+    private long approvalCount;
     private boolean blocked;
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private ModerationStatus moderationStatus = ModerationStatus.PENDING;
+    // Representative of the near-duplicate cluster; null when this comment is the first of its cluster.
+    private Long clusterId;
+    // Review lease of a blocked comment: the moderator working on it and until when.
+    private Long leasedBy;
+    private LocalDateTime leaseExpiresAt;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id", nullable = false)
@@ -0,0 +1,35 @@
+package WAWRO.PRE_KONSULTACJE.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// The (comment_id, user_id) primary key is what makes a second approval by the same user impossible.
+@Entity
+@Table(
+        name = "comment_approvals",
+        indexes = @Index(name = "idx_comment_approvals_user", columnList = "user_id")
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CommentApproval {
+
+    @EmbeddedId
+    private CommentApprovalId id;
+
+    @MapsId("commentId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "comment_id")
+    private Comment comment;
+
+    @MapsId("userId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    private LocalDateTime dateCreated;
+}
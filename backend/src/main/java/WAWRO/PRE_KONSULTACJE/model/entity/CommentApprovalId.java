@@ -0,0 +1,18 @@
+package WAWRO.PRE_KONSULTACJE.model.entity;
+
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class CommentApprovalId implements Serializable {
+
+    private Long commentId;
+    private Long userId;
+}
@@ -1,14 +1,19 @@
 package WAWRO.PRE_KONSULTACJE.model.entity;
 
+import WAWRO.PRE_KONSULTACJE.utils.SequenceIdAllocator;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "preconsultations")
+@Table(
+        name = "preconsultations",
+        indexes = @Index(name = "idx_preconsultations_active_comment_count", columnList = "active, active_comment_count")
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,7 +22,9 @@ import java.util.List;
 public class PreConsultation {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SequenceIdAllocator.PRECONSULTATIONS_SEQUENCE)
+    @SequenceGenerator(name = SequenceIdAllocator.PRECONSULTATIONS_SEQUENCE, sequenceName = SequenceIdAllocator.PRECONSULTATIONS_SEQUENCE,
+            allocationSize = SequenceIdAllocator.ALLOCATION_SIZE)
     private Long id;
 
     private String subject;
@@ -25,6 +32,17 @@ public class PreConsultation {
     private boolean active;
     private LocalDateTime dateCreated;
 
+    // Maintained only through atomic UPDATEs in PreConsultationRepository, never by entity flushes.
+    @ColumnDefault("0")
+    @Column(updatable = false)
+    private long activeCommentCount;
+    @ColumnDefault("0")
+    @Column(updatable = false)
+    private long blockedCommentCount;
+    @ColumnDefault("0")
+    @Column(updatable = false)
+    private long approvalCount;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id")
     private User author;
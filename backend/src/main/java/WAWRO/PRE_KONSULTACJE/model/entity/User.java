@@ -1,6 +1,7 @@
 package WAWRO.PRE_KONSULTACJE.model.entity;
 
 import WAWRO.PRE_KONSULTACJE.model.enums.Role;
+import WAWRO.PRE_KONSULTACJE.utils.SequenceIdAllocator;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -9,7 +10,10 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(
+        name = "users",
+        indexes = @Index(name = "ux_users_identity_key", columnList = "identity_key", unique = true)
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -18,7 +22,9 @@ import java.util.Set;
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SequenceIdAllocator.USERS_SEQUENCE)
+    @SequenceGenerator(name = SequenceIdAllocator.USERS_SEQUENCE, sequenceName = SequenceIdAllocator.USERS_SEQUENCE,
+            allocationSize = SequenceIdAllocator.ALLOCATION_SIZE)
     private Long id;
     private String firstName;
     private String lastName;
@@ -28,6 +34,9 @@ public class User {
     private Role role;
     private boolean enabled;
     private LocalDateTime dateCreated;
+    // Set only for analog users, see AnalogIdentity.
+    @Column(length = 64)
+    private String identityKey;
 
     @OneToMany(
             mappedBy = "author",
@@ -0,0 +1,6 @@
+package WAWRO.PRE_KONSULTACJE.model.enums;
+
+public enum ExportFormat {
+    CSV,
+    NDJSON
+}
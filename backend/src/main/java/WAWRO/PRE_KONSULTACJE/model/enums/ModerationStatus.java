@@ -0,0 +1,24 @@
+package WAWRO.PRE_KONSULTACJE.model.enums;
+
+public enum ModerationStatus {
+    PENDING,
+    APPROVED,
+    NEEDS_REVIEW,
+    BLOCKED,
+    // Blocked by a moderator; unlike NEEDS_REVIEW and BLOCKED it never returns to the review queue.
+    REJECTED;
+
+    public static ModerationStatus fromVerdict(String verdict) {
+        if ("OK".equals(verdict)) {
+            return APPROVED;
+        }
+        if ("BLOCK".equals(verdict)) {
+            return BLOCKED;
+        }
+        return NEEDS_REVIEW;
+    }
+
+    public boolean hidesComment() {
+        return this == NEEDS_REVIEW || this == BLOCKED || this == REJECTED;
+    }
+}
@@ -0,0 +1,15 @@
+package WAWRO.PRE_KONSULTACJE.model.enums;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// Document kinds understood by the AI-service /summarize prompt selection.
+public enum SummaryType {
+    @JsonProperty("ust")
+    UST,
+    @JsonProperty("osr")
+    OSR,
+    @JsonProperty("eks")
+    EKS,
+    @JsonProperty("zmiana")
+    ZMIANA
+}
@@ -0,0 +1,14 @@
+package WAWRO.PRE_KONSULTACJE.model.projection;
+
+public interface CommentClusterMemberView {
+
+    Long getId();
+
+    Long getPreConsultationId();
+
+    Long getClusterId();
+
+    default Long getClusterKey() {
+        return getClusterId() != null ? getClusterId() : getId();
+    }
+}
@@ -0,0 +1,16 @@
+package WAWRO.PRE_KONSULTACJE.model.projection;
+
+import java.time.LocalDateTime;
+
+public interface CommentClusterView {
+
+    Long getClusterId();
+
+    long getSize();
+
+    String getContent();
+
+    LocalDateTime getDateCreated();
+
+    boolean getBlocked();
+}
@@ -0,0 +1,20 @@
+package WAWRO.PRE_KONSULTACJE.model.projection;
+
+import WAWRO.PRE_KONSULTACJE.model.enums.ModerationStatus;
+
+public interface CommentModerationView {
+
+    Long getId();
+
+    String getContent();
+
+    Long getPreConsultationId();
+
+    Long getClusterId();
+
+    ModerationStatus getClusterStatus();
+
+    default Long getClusterKey() {
+        return getClusterId() != null ? getClusterId() : getId();
+    }
+}
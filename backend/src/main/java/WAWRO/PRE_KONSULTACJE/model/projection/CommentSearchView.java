@@ -0,0 +1,24 @@
+package WAWRO.PRE_KONSULTACJE.model.projection;
+
+import java.time.LocalDateTime;
+
+public interface CommentSearchView {
+
+    Long getId();
+
+    Long getConsultationId();
+
+    String getConsultationSubject();
+
+    String getAuthorFirstName();
+
+    String getAuthorLastName();
+
+    LocalDateTime getDateCreated();
+
+    boolean getBlocked();
+
+    float getRank();
+
+    String getSnippet();
+}
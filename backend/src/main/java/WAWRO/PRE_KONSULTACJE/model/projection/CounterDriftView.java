@@ -0,0 +1,18 @@
+package WAWRO.PRE_KONSULTACJE.model.projection;
+
+public interface CounterDriftView {
+
+    Long getId();
+
+    long getStoredActive();
+
+    long getActualActive();
+
+    long getStoredBlocked();
+
+    long getActualBlocked();
+
+    long getStoredApprovals();
+
+    long getActualApprovals();
+}
@@ -0,0 +1,16 @@
+package WAWRO.PRE_KONSULTACJE.model.projection;
+
+public interface PreConsultationSummaryView {
+
+    Long getId();
+
+    String getSubject();
+
+    String getAuthorFirstName();
+
+    String getAuthorLastName();
+
+    long getCommentCount();
+
+    long getApprovalCount();
+}
@@ -0,0 +1,32 @@
+package WAWRO.PRE_KONSULTACJE.repository;
+
+import WAWRO.PRE_KONSULTACJE.model.entity.CommentApproval;
+import WAWRO.PRE_KONSULTACJE.model.entity.CommentApprovalId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface CommentApprovalRepository extends JpaRepository<CommentApproval, CommentApprovalId> {
+
+    /**
+     * Removes the user's approval if present, otherwise adds it, in one statement.
+     *
+     * @return +1 when an approval was added, -1 when one was removed and 0 when a
+     * concurrent toggle by the same user won the race
+     */
+    @Query(value = """
+            with removed as (
+                delete from comment_approvals
+                where comment_id = :commentId and user_id = :userId
+                returning 1
+            ), added as (
+                insert into comment_approvals (comment_id, user_id, date_created)
+                select :commentId, :userId, now()
+                where not exists (select 1 from removed)
+                on conflict do nothing
+                returning 1
+            )
+            select (select count(*) from added) - (select count(*) from removed)
+            """, nativeQuery = true)
+    long toggle(@Param("commentId") Long commentId, @Param("userId") Long userId);
+}
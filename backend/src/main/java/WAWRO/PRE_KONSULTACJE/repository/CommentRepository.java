@@ -1,10 +1,25 @@
 package WAWRO.PRE_KONSULTACJE.repository;
 
 import WAWRO.PRE_KONSULTACJE.model.entity.Comment;
+import WAWRO.PRE_KONSULTACJE.model.enums.ModerationStatus;
+import WAWRO.PRE_KONSULTACJE.model.projection.CommentClusterMemberView;
+import WAWRO.PRE_KONSULTACJE.model.projection.CommentClusterView;
+import WAWRO.PRE_KONSULTACJE.model.projection.CommentModerationView;
+import WAWRO.PRE_KONSULTACJE.model.projection.CommentSearchView;
 import jakarta.validation.ValidationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
@@ -13,7 +28,223 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
                 .orElseThrow(() -> new ValidationException("Comment not found with ID: " + id));
     }
 
-    List<Comment> findAllByPreConsultationIdAndBlockedFalse(Long preConsultationId);
+    @Query("select c from Comment c join fetch c.author where c.id = :id")
+    Optional<Comment> findWithAuthorById(@Param("id") Long id);
 
-    List<Comment> findAllByBlockedTrueOrderByDateCreatedDesc();
+    @Query("""
+            select c from Comment c join fetch c.author
+            where c.preConsultation.id = :consultationId and c.blocked = false
+            order by c.dateCreated, c.id
+            """)
+    List<Comment> findActivePage(@Param("consultationId") Long consultationId, Limit limit);
+
+    @Query("""
+            select c from Comment c join fetch c.author
+            where c.preConsultation.id = :consultationId and c.blocked = false
+              and (c.dateCreated > :afterDate or (c.dateCreated = :afterDate and c.id > :afterId))
+            order by c.dateCreated, c.id
+            """)
+    List<Comment> findActivePageAfter(@Param("consultationId") Long consultationId,
+                                      @Param("afterDate") LocalDateTime afterDate,
+                                      @Param("afterId") Long afterId,
+                                      Limit limit);
+
+    @Query(value = "select c from Comment c join fetch c.author where c.blocked = true order by c.dateCreated desc, c.id desc",
+            countQuery = "select count(c) from Comment c where c.blocked = true")
+    Page<Comment> findBlockedPage(Pageable pageable);
+
+    @Query("select c from Comment c join fetch c.author where c.id in :ids order by c.dateCreated, c.id")
+    List<Comment> findWithAuthorByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Leases up to {@code limit} of the oldest blocked comments awaiting review to a moderator,
+     * renewing the moderator's own leases. SKIP LOCKED lets concurrent claims pass each other
+     * instead of queueing on the same rows, so no comment is handed to two moderators.
+     */
+    @Transactional
+    @Query(value = """
+            update comments c
+            set leased_by = :moderatorId, lease_expires_at = :expiresAt
+            where c.id in (
+                select q.id
+                from comments q
+                where q.blocked and q.moderation_status in ('NEEDS_REVIEW', 'BLOCKED')
+                  and (q.lease_expires_at is null or q.lease_expires_at < :now or q.leased_by = :moderatorId)
+                order by q.date_created, q.id
+                limit :limit
+                for update skip locked
+            )
+            returning c.id
+            """, nativeQuery = true)
+    List<Long> claimForReview(@Param("moderatorId") Long moderatorId,
+                              @Param("now") LocalDateTime now,
+                              @Param("expiresAt") LocalDateTime expiresAt,
+                              @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update Comment c set c.leasedBy = null, c.leaseExpiresAt = null
+            where c.leasedBy = :moderatorId and c.blocked = true
+            """)
+    int releaseLeases(@Param("moderatorId") Long moderatorId);
+
+    @Query(value = """
+            select g.cluster_id as "clusterId",
+                   g.size as "size",
+                   r.content as "content",
+                   r.date_created as "dateCreated",
+                   r.blocked as "blocked"
+            from (
+                select coalesce(c.cluster_id, c.id) as cluster_id, count(*) as size
+                from comments c
+                where c.pre_consultation_id = :consultationId
+                group by coalesce(c.cluster_id, c.id)
+                having count(*) >= :minSize
+            ) g
+            join comments r on r.id = g.cluster_id
+            order by g.size desc, g.cluster_id
+            """,
+            countQuery = """
+            select count(*)
+            from (
+                select 1
+                from comments c
+                where c.pre_consultation_id = :consultationId
+                group by coalesce(c.cluster_id, c.id)
+                having count(*) >= :minSize
+            ) g
+            """,
+            nativeQuery = true)
+    Page<CommentClusterView> findClusters(@Param("consultationId") Long consultationId,
+                                          @Param("minSize") long minSize,
+                                          Pageable pageable);
+
+    // search_vector and its GIN index are created by db/search.sql. The content is HTML-escaped before
+    // ts_headline adds <mark> tags; the headline is only computed for the rows of the requested page,
+    // as PostgreSQL evaluates costly select-list functions after ORDER BY ... LIMIT.
+    @Query(value = """
+            select c.id as "id",
+                   c.pre_consultation_id as "consultationId",
+                   p.subject as "consultationSubject",
+                   u.first_name as "authorFirstName",
+                   u.last_name as "authorLastName",
+                   c.date_created as "dateCreated",
+                   c.blocked as "blocked",
+                   ts_rank_cd(c.search_vector, q.query) as "rank",
+                   ts_headline('polish_unaccent',
+                           replace(replace(replace(c.content, '&', '&amp;'), '<', '&lt;'), '>', '&gt;'),
+                           q.query,
+                           'StartSel=<mark>, StopSel=</mark>, MaxWords=35, MinWords=15, MaxFragments=2, FragmentDelimiter=" … "')
+                       as "snippet"
+            from comments c
+            cross join websearch_to_tsquery('polish_unaccent', :query) as q(query)
+            join preconsultations p on p.id = c.pre_consultation_id
+            join users u on u.id = c.author_id
+            where c.search_vector @@ q.query
+              and (cast(:consultationId as bigint) is null or c.pre_consultation_id = :consultationId)
+              and (:includeBlocked or c.blocked = false)
+            order by "rank" desc, c.id
+            """,
+            countQuery = """
+            select count(*)
+            from comments c
+            where c.search_vector @@ websearch_to_tsquery('polish_unaccent', :query)
+              and (cast(:consultationId as bigint) is null or c.pre_consultation_id = :consultationId)
+              and (:includeBlocked or c.blocked = false)
+            """,
+            nativeQuery = true)
+    Page<CommentSearchView> search(@Param("query") String query,
+                                   @Param("consultationId") Long consultationId,
+                                   @Param("includeBlocked") boolean includeBlocked,
+                                   Pageable pageable);
+
+    @Query("""
+            select c.id as id, c.content as content, c.preConsultation.id as preConsultationId,
+                   c.clusterId as clusterId, r.moderationStatus as clusterStatus
+            from Comment c
+            left join Comment r on r.id = c.clusterId
+            where c.id in :ids and c.moderationStatus = :status
+            """)
+    List<CommentModerationView> findModerationViews(@Param("ids") Collection<Long> ids,
+                                                    @Param("status") ModerationStatus status);
+
+    @Query("""
+            select c.id as id, c.preConsultation.id as preConsultationId, c.clusterId as clusterId
+            from Comment c
+            where c.moderationStatus = :status and (c.id in :clusterIds or c.clusterId in :clusterIds)
+            """)
+    List<CommentClusterMemberView> findClusterMembers(@Param("clusterIds") Collection<Long> clusterIds,
+                                                      @Param("status") ModerationStatus status);
+
+    @Query("select c.id from Comment c where c.moderationStatus = :status and c.dateCreated < :before order by c.dateCreated")
+    List<Long> findIdsByModerationStatusCreatedBefore(@Param("status") ModerationStatus status,
+                                                      @Param("before") LocalDateTime before,
+                                                      Limit limit);
+
+    /**
+     * Moderator decision on one comment, applied only while the comment is still
+     * {@code expectedBlocked}; returns 0 when a concurrent action got there first.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Comment c
+            set c.blocked = :blocked, c.moderationStatus = :status, c.leasedBy = null, c.leaseExpiresAt = null
+            where c.id = :id and c.blocked = :expectedBlocked
+            """)
+    int updateBlockStatus(@Param("id") Long id,
+                          @Param("expectedBlocked") boolean expectedBlocked,
+                          @Param("blocked") boolean blocked,
+                          @Param("status") ModerationStatus status);
+
+    // Conditional like updateBlockStatus: a comment unblocked in the meantime is left alone.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Comment c
+            set c.moderationStatus = :status, c.leasedBy = null, c.leaseExpiresAt = null
+            where c.id = :id and c.blocked = true and c.moderationStatus <> :status
+            """)
+    int updateBlockedModerationStatus(@Param("id") Long id, @Param("status") ModerationStatus status);
+
+    /**
+     * Moves the given comments from {@code expected} to {@code status} and returns the ids of the
+     * rows actually changed, so callers can tell them apart from comments a concurrent action
+     * already moved on. Statuses are passed by {@link ModerationStatus#name()}.
+     */
+    @Transactional
+    @Query(value = """
+            update comments c
+            set moderation_status = :status, blocked = :blocked
+            where c.id in :ids and c.moderation_status = :expected
+            returning c.id
+            """, nativeQuery = true)
+    List<Long> updateModerationStatus(@Param("ids") Collection<Long> ids,
+                                      @Param("expected") String expected,
+                                      @Param("status") String status,
+                                      @Param("blocked") boolean blocked);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Comment c set c.approvalCount = c.approvalCount + :delta where c.id = :id")
+    int adjustApprovalCount(@Param("id") Long id, @Param("delta") long delta);
+
+    /**
+     * Corrects drifted approval counts and returns the consultation id of every repaired comment.
+     * The drift is measured within the statement's snapshot and added to the current value, so an
+     * {@link #adjustApprovalCount} committed meanwhile is kept instead of overwritten.
+     */
+    @Transactional
+    @Query(value = """
+            update comments c
+            set approval_count = c.approval_count + (a.actual - a.stored)
+            from (
+                select c2.id, c2.approval_count as stored, count(ca.user_id) as actual
+                from comments c2
+                left join comment_approvals ca on ca.comment_id = c2.id
+                group by c2.id, c2.approval_count
+            ) a
+            where a.id = c.id and a.stored <> a.actual
+            returning c.pre_consultation_id
+            """, nativeQuery = true)
+    List<Long> repairApprovalCounts();
 }
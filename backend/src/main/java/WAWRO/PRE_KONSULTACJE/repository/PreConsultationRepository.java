@@ -1,10 +1,19 @@
 package WAWRO.PRE_KONSULTACJE.repository;
 
 import WAWRO.PRE_KONSULTACJE.model.entity.PreConsultation;
-import org.springframework.data.domain.Sort;
+import WAWRO.PRE_KONSULTACJE.model.projection.CounterDriftView;
+import WAWRO.PRE_KONSULTACJE.model.projection.PreConsultationSummaryView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface PreConsultationRepository extends JpaRepository<PreConsultation, Long> {
 
@@ -14,5 +23,96 @@ public interface PreConsultationRepository extends JpaRepository<PreConsultation
                 .orElseThrow(() -> new IllegalArgumentException("PreConsultation not found with ID: " + id));
     }
 
-    List<PreConsultation> findAllByActiveTrue(Sort sort);
+    default PreConsultation findDetailByIdOrThrow(Long id) {
+        return findDetailById(id)
+                .orElseThrow(() -> new IllegalArgumentException("PreConsultation not found with ID: " + id));
+    }
+
+    // The detail view maps the whole graph, so authors are fetched with it instead of one query per comment.
+    @Query("""
+            select p from PreConsultation p
+            left join fetch p.author
+            left join fetch p.comments c
+            left join fetch c.author
+            where p.id = :id and p.active = true
+            """)
+    Optional<PreConsultation> findDetailById(@Param("id") Long id);
+
+    @Query(value = """
+            select p.id as id,
+                   p.subject as subject,
+                   a.firstName as authorFirstName,
+                   a.lastName as authorLastName,
+                   p.activeCommentCount as commentCount,
+                   p.approvalCount as approvalCount
+            from PreConsultation p
+            left join p.author a
+            where p.active = true
+            order by p.activeCommentCount desc, p.id
+            """,
+            countQuery = "select count(p) from PreConsultation p where p.active = true")
+    Page<PreConsultationSummaryView> findActiveSummaries(Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update PreConsultation p
+            set p.activeCommentCount = p.activeCommentCount + :activeDelta,
+                p.blockedCommentCount = p.blockedCommentCount + :blockedDelta,
+                p.approvalCount = p.approvalCount + :approvalDelta
+            where p.id = :id
+            """)
+    int adjustCounters(@Param("id") Long id,
+                       @Param("activeDelta") long activeDelta,
+                       @Param("blockedDelta") long blockedDelta,
+                       @Param("approvalDelta") long approvalDelta);
+
+    @Query(value = """
+            select p.id as "id",
+                   p.active_comment_count as "storedActive",
+                   coalesce(a.active, 0) as "actualActive",
+                   p.blocked_comment_count as "storedBlocked",
+                   coalesce(a.blocked, 0) as "actualBlocked",
+                   p.approval_count as "storedApprovals",
+                   coalesce(a.approvals, 0) as "actualApprovals"
+            from preconsultations p
+            left join (
+                select c.pre_consultation_id as consultation_id,
+                       count(*) filter (where not c.blocked) as active,
+                       count(*) filter (where c.blocked) as blocked,
+                       coalesce(sum(c.approval_count), 0) as approvals
+                from comments c
+                group by c.pre_consultation_id
+            ) a on a.consultation_id = p.id
+            where (p.active_comment_count, p.blocked_comment_count, p.approval_count)
+                  is distinct from (coalesce(a.active, 0), coalesce(a.blocked, 0), coalesce(a.approvals, 0))
+            order by p.id
+            """, nativeQuery = true)
+    List<CounterDriftView> findCounterDrift();
+
+    /**
+     * Corrects the counters of the given consultations. Like {@code CommentRepository#repairApprovalCounts}
+     * it adds the drift seen in the statement's snapshot ({@code s} against {@code a}) to the current
+     * row, so counters adjusted by a transaction that committed meanwhile are not overwritten.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            update preconsultations p
+            set active_comment_count = p.active_comment_count + (coalesce(a.active, 0) - s.active_comment_count),
+                blocked_comment_count = p.blocked_comment_count + (coalesce(a.blocked, 0) - s.blocked_comment_count),
+                approval_count = p.approval_count + (coalesce(a.approvals, 0) - s.approval_count)
+            from preconsultations s
+            left join (
+                select c.pre_consultation_id as consultation_id,
+                       count(*) filter (where not c.blocked) as active,
+                       count(*) filter (where c.blocked) as blocked,
+                       coalesce(sum(c.approval_count), 0) as approvals
+                from comments c
+                where c.pre_consultation_id in :ids
+                group by c.pre_consultation_id
+            ) a on a.consultation_id = s.id
+            where s.id = p.id and p.id in :ids
+            """, nativeQuery = true)
+    int recomputeCounters(@Param("ids") Collection<Long> ids);
 }
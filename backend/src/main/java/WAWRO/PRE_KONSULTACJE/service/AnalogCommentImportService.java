@@ -0,0 +1,312 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.config.CommentProperties;
+import WAWRO.PRE_KONSULTACJE.event.CommentEvent;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentCreateAnalogDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.ImportLineResultDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.ImportSummaryDTO;
+import WAWRO.PRE_KONSULTACJE.model.enums.ModerationStatus;
+import WAWRO.PRE_KONSULTACJE.repository.PreConsultationRepository;
+import WAWRO.PRE_KONSULTACJE.utils.AnalogIdentity;
+import WAWRO.PRE_KONSULTACJE.utils.MinHash;
+import WAWRO.PRE_KONSULTACJE.utils.NearDuplicateIndex;
+import WAWRO.PRE_KONSULTACJE.utils.ProfanityFilter;
+import WAWRO.PRE_KONSULTACJE.utils.SequenceIdAllocator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports scanned paper comments from an NDJSON stream, one {@link CommentCreateAnalogDTO} per line.
+ * Lines are read incrementally and written in JDBC batches, each batch in its own transaction, so
+ * neither the payload nor the report is ever held in memory as a whole. Every input line gets one
+ * result line in the report; rejected lines are reported immediately, created ones when their
+ * batch commits.
+ */
+@Slf4j
+@Service
+public class AnalogCommentImportService {
+
+    private static final String INSERT_COMMENT = """
+            insert into comments (id, content, date_created, blocked, moderation_status, author_id, pre_consultation_id, cluster_id)
+            values (:id, :content, :dateCreated, :blocked, :moderationStatus, :authorId, :consultationId, :clusterId)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PreConsultationRepository preConsultationRepository;
+    private final AnalogUserResolver analogUserResolver;
+    private final SequenceIdAllocator idAllocator;
+    private final NearDuplicateIndex nearDuplicateIndex;
+    private final ProfanityFilter profanityFilter;
+    private final Validator validator;
+    private final JsonMapper jsonMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CommentProperties commentProperties;
+
+    public AnalogCommentImportService(NamedParameterJdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      PreConsultationRepository preConsultationRepository,
+                                      AnalogUserResolver analogUserResolver,
+                                      SequenceIdAllocator idAllocator,
+                                      NearDuplicateIndex nearDuplicateIndex,
+                                      ProfanityFilter profanityFilter,
+                                      Validator validator,
+                                      JsonMapper jsonMapper,
+                                      ApplicationEventPublisher eventPublisher,
+                                      CommentProperties commentProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.preConsultationRepository = preConsultationRepository;
+        this.analogUserResolver = analogUserResolver;
+        this.idAllocator = idAllocator;
+        this.nearDuplicateIndex = nearDuplicateIndex;
+        this.profanityFilter = profanityFilter;
+        this.validator = validator;
+        this.jsonMapper = jsonMapper;
+        this.eventPublisher = eventPublisher;
+        this.commentProperties = commentProperties;
+    }
+
+    public ImportSummaryDTO importComments(Long consultationId, InputStream ndjson, OutputStream report) throws IOException {
+        // Fails before anything is written, so an unknown consultation still gets a regular error response.
+        preConsultationRepository.findByIdOrThrow(consultationId);
+
+        LineReader reader = new LineReader(new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8)),
+                commentProperties.getImportMaxLineLength());
+        Writer writer = new BufferedWriter(new OutputStreamWriter(report, StandardCharsets.UTF_8));
+        int batchSize = commentProperties.getImportBatchSize();
+        List<PendingComment> batch = new ArrayList<>(batchSize);
+        Counts counts = new Counts();
+
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() && !reader.truncated()) {
+                continue;
+            }
+            counts.lines++;
+            String error = reader.truncated()
+                    ? "Line longer than " + commentProperties.getImportMaxLineLength() + " characters"
+                    : parse(line, lineNumber, batch);
+            if (error != null) {
+                counts.rejected++;
+                writeLine(writer, ImportLineResultDTO.rejected(lineNumber, error));
+            }
+            if (batch.size() >= batchSize) {
+                flush(consultationId, batch, writer, counts);
+            }
+        }
+        flush(consultationId, batch, writer, counts);
+
+        ImportSummaryDTO summary = new ImportSummaryDTO(counts.lines, counts.created, counts.rejected, counts.failed);
+        writeLine(writer, summary);
+        writer.flush();
+        log.info("Analog import into consultation {} finished: {}", consultationId, summary);
+        return summary;
+    }
+
+    private String parse(String line, long lineNumber, List<PendingComment> batch) {
+        CommentCreateAnalogDTO dto;
+        try {
+            dto = jsonMapper.readValue(line, CommentCreateAnalogDTO.class);
+        } catch (JacksonException e) {
+            return "Malformed JSON: " + e.getOriginalMessage();
+        }
+        if (dto == null) {
+            return "Expected a JSON object";
+        }
+        Set<ConstraintViolation<CommentCreateAnalogDTO>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        ModerationStatus status = profanityFilter.containsProfanity(dto.content())
+                ? ModerationStatus.NEEDS_REVIEW
+                : ModerationStatus.PENDING;
+        batch.add(new PendingComment(lineNumber, dto, status, MinHash.signature(dto.content())));
+        return null;
+    }
+
+    private void flush(Long consultationId, List<PendingComment> batch, Writer writer, Counts counts) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Long> commentIds;
+        try {
+            commentIds = transactionTemplate.execute(status -> insertBatch(consultationId, batch));
+        } catch (RuntimeException e) {
+            log.warn("Analog import batch of {} comments into consultation {} failed", batch.size(), consultationId, e);
+            for (PendingComment pending : batch) {
+                counts.failed++;
+                writeLine(writer, ImportLineResultDTO.failed(pending.line(), e.getMessage()));
+            }
+            batch.clear();
+            writer.flush();
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            counts.created++;
+            writeLine(writer, ImportLineResultDTO.created(batch.get(i).line(), commentIds.get(i)));
+        }
+        batch.clear();
+        writer.flush();
+    }
+
+    private List<Long> insertBatch(Long consultationId, List<PendingComment> batch) {
+        Timestamp timestamp = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Long> userIds = analogUserResolver.resolveAll(batch.stream()
+                .map(pending -> new AnalogIdentity(
+                        pending.dto().firstName(), pending.dto().lastName(), pending.dto().address()))
+                .toList());
+
+        // Ids are known before the insert, so copies can point at a representative from the same batch right away.
+        long[] commentIds = idAllocator.allocate(SequenceIdAllocator.COMMENTS_SEQUENCE, batch.size());
+        Long[] clusterIds = assignClusters(consultationId, batch, commentIds);
+
+        SqlParameterSource[] comments = new SqlParameterSource[batch.size()];
+        long hidden = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            PendingComment pending = batch.get(i);
+            boolean blocked = pending.status().hidesComment();
+            hidden += blocked ? 1 : 0;
+            comments[i] = new MapSqlParameterSource()
+                    .addValue("id", commentIds[i])
+                    .addValue("content", pending.dto().content())
+                    .addValue("dateCreated", timestamp)
+                    .addValue("blocked", blocked)
+                    .addValue("moderationStatus", pending.status().name())
+                    .addValue("authorId", userIds.get(i))
+                    .addValue("consultationId", consultationId)
+                    .addValue("clusterId", clusterIds[i]);
+        }
+        jdbcTemplate.batchUpdate(INSERT_COMMENT, comments);
+
+        for (int i = 0; i < batch.size(); i++) {
+            long clusterId = clusterIds[i] != null ? clusterIds[i] : commentIds[i];
+            nearDuplicateIndex.addAfterCommit(consultationId, batch.get(i).signature(), clusterId);
+        }
+        preConsultationRepository.adjustCounters(consultationId, batch.size() - hidden, hidden, 0);
+        List<Long> ids = Arrays.stream(commentIds).boxed().toList();
+        ids.forEach(commentId -> eventPublisher.publishEvent(
+                new CommentEvent(consultationId, commentId, CommentEvent.Type.CREATED)));
+        return ids;
+    }
+
+    /**
+     * Campaigns usually arrive as one scanned pile, so copies are matched against the committed
+     * index and against earlier lines of the same batch. Returns the cluster id of every line,
+     * null for a line that starts a new cluster.
+     */
+    private Long[] assignClusters(Long consultationId, List<PendingComment> batch, long[] commentIds) {
+        Long[] clusterIds = new Long[batch.size()];
+        List<Integer> newRepresentatives = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            int[] signature = batch.get(i).signature();
+            clusterIds[i] = nearDuplicateIndex.findCluster(consultationId, signature);
+            if (clusterIds[i] != null) {
+                continue;
+            }
+            for (int representative : newRepresentatives) {
+                if (MinHash.isNearDuplicate(batch.get(representative).signature(), signature)) {
+                    clusterIds[i] = commentIds[representative];
+                    break;
+                }
+            }
+            if (clusterIds[i] == null) {
+                newRepresentatives.add(i);
+            }
+        }
+        return clusterIds;
+    }
+
+    private void writeLine(Writer writer, Object value) throws IOException {
+        writer.write(jsonMapper.writeValueAsString(value));
+        writer.write('\n');
+    }
+
+    private record PendingComment(long line, CommentCreateAnalogDTO dto, ModerationStatus status, int[] signature) {
+    }
+
+    /**
+     * Reads LF- or CRLF-terminated lines, keeping at most {@code maxLength} characters of each; the
+     * rest of a longer line is skipped, so a single huge line cannot exhaust the heap.
+     */
+    private static final class LineReader {
+
+        private final Reader reader;
+        private final int maxLength;
+        private final StringBuilder line = new StringBuilder();
+        private boolean truncated;
+
+        LineReader(Reader reader, int maxLength) {
+            this.reader = reader;
+            this.maxLength = maxLength;
+        }
+
+        String readLine() throws IOException {
+            line.setLength(0);
+            truncated = false;
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            while (c != -1 && c != '\n') {
+                if (line.length() < maxLength) {
+                    line.append((char) c);
+                } else {
+                    truncated = true;
+                }
+                c = reader.read();
+            }
+            int end = line.length();
+            if (end > 0 && line.charAt(end - 1) == '\r') {
+                line.setLength(end - 1);
+            }
+            return line.toString();
+        }
+
+        boolean truncated() {
+            return truncated;
+        }
+    }
+
+    private static final class Counts {
+        long lines;
+        long created;
+        long rejected;
+        long failed;
+    }
+}
@@ -0,0 +1,130 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.config.CommentProperties;
+import WAWRO.PRE_KONSULTACJE.model.enums.Role;
+import WAWRO.PRE_KONSULTACJE.utils.AnalogIdentity;
+import WAWRO.PRE_KONSULTACJE.utils.SequenceIdAllocator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps analog identities to {@code users} ids, inserting a row only for senders not seen before.
+ * Known keys are answered from an in-memory interning cache; the rest are upserted in one batch
+ * against the unique identity_key index, which also settles races between concurrent imports.
+ */
+@Service
+public class AnalogUserResolver {
+
+    // pgjdbc appends "RETURNING id"; the no-op update makes existing rows return their own id
+    // instead of the preallocated one, which is then simply left unused.
+    private static final String UPSERT_USER = """
+            insert into users (id, first_name, last_name, role, enabled, date_created, identity_key)
+            values (:id, :firstName, :lastName, :role, false, :dateCreated, :identityKey)
+            on conflict (identity_key) do update set identity_key = excluded.identity_key
+            """;
+    private static final String[] ID_COLUMN = {"id"};
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+    private final Cache<String, Long> idsByKey;
+
+    public AnalogUserResolver(NamedParameterJdbcTemplate jdbcTemplate,
+                              SequenceIdAllocator idAllocator,
+                              CommentProperties commentProperties,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+        this.idsByKey = Caffeine.newBuilder()
+                .maximumSize(commentProperties.getAnalogUserCacheSize())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByKey, "analog.users");
+    }
+
+    public Long resolve(AnalogIdentity identity) {
+        return resolveAll(List.of(identity)).getFirst();
+    }
+
+    /**
+     * @return user ids in the order of {@code identities}
+     */
+    public List<Long> resolveAll(List<AnalogIdentity> identities) {
+        List<String> keys = identities.stream().map(AnalogIdentity::key).toList();
+        Map<String, Long> resolved = new HashMap<>(idsByKey.getAllPresent(keys));
+
+        Map<String, AnalogIdentity> missing = new LinkedHashMap<>();
+        for (int i = 0; i < identities.size(); i++) {
+            if (!resolved.containsKey(keys.get(i))) {
+                missing.putIfAbsent(keys.get(i), identities.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, Long> inserted = upsert(missing);
+            resolved.putAll(inserted);
+            cacheAfterCommit(inserted);
+        }
+
+        List<Long> ids = new ArrayList<>(keys.size());
+        keys.forEach(key -> ids.add(resolved.get(key)));
+        return ids;
+    }
+
+    private Map<String, Long> upsert(Map<String, AnalogIdentity> missing) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<String> keys = new ArrayList<>(missing.keySet());
+        long[] newIds = idAllocator.allocate(SequenceIdAllocator.USERS_SEQUENCE, keys.size());
+        SqlParameterSource[] rows = new SqlParameterSource[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            AnalogIdentity identity = missing.get(keys.get(i));
+            rows[i] = new MapSqlParameterSource()
+                    .addValue("id", newIds[i])
+                    .addValue("firstName", identity.firstName())
+                    .addValue("lastName", identity.lastName())
+                    .addValue("role", Role.ANALOG_USER.name())
+                    .addValue("dateCreated", now)
+                    .addValue("identityKey", keys.get(i));
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(UPSERT_USER, rows, keyHolder, ID_COLUMN);
+
+        List<Map<String, Object>> generated = keyHolder.getKeyList();
+        Map<String, Long> ids = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            ids.put(keys.get(i), ((Number) generated.get(i).get("id")).longValue());
+        }
+        return ids;
+    }
+
+    // An id from a transaction that later rolls back must never be interned.
+    private void cacheAfterCommit(Map<String, Long> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            idsByKey.putAll(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                idsByKey.putAll(ids);
+            }
+        });
+    }
+}
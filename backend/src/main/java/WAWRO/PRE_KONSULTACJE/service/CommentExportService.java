@@ -0,0 +1,144 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.config.CommentProperties;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentExportRowDTO;
+import WAWRO.PRE_KONSULTACJE.model.enums.ExportFormat;
+import WAWRO.PRE_KONSULTACJE.model.enums.ModerationStatus;
+import WAWRO.PRE_KONSULTACJE.repository.PreConsultationRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams every comment of a consultation straight from a forward-only JDBC cursor into the
+ * response. PostgreSQL only uses a cursor (and honours the fetch size) inside a transaction, so
+ * the query runs in a read-only one; memory use is bounded by the fetch size, not the row count.
+ */
+@Service
+public class CommentExportService {
+
+    private static final String EXPORT_QUERY = """
+            select c.id, c.date_created, u.first_name, u.last_name, c.content,
+                   c.approval_count, c.blocked, c.moderation_status
+            from comments c
+            join users u on u.id = c.author_id
+            where c.pre_consultation_id = ?
+            order by c.date_created, c.id
+            """;
+    private static final String CSV_HEADER =
+            "id,date_created,author_first_name,author_last_name,content,approvals,blocked,moderation_status";
+    // Leading characters that make a spreadsheet evaluate a cell as a formula.
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final PreConsultationRepository preConsultationRepository;
+    private final JsonMapper jsonMapper;
+
+    public CommentExportService(DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                PreConsultationRepository preConsultationRepository,
+                                JsonMapper jsonMapper,
+                                CommentProperties commentProperties) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(commentProperties.getExportFetchSize());
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.preConsultationRepository = preConsultationRepository;
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * Checks the consultation up front, while an error can still become a regular response,
+     * and returns the body that streams the rows once the response is committed.
+     */
+    public StreamingResponseBody export(Long consultationId, ExportFormat format, boolean gzip) {
+        preConsultationRepository.findByIdOrThrow(consultationId);
+        return outputStream -> {
+            OutputStream target = gzip ? new GZIPOutputStream(outputStream, 64 * 1024) : outputStream;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(EXPORT_QUERY,
+                        (RowCallbackHandler) rs -> writeRow(writer, format, toRow(rs)), consultationId));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+            if (target instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+        };
+    }
+
+    private CommentExportRowDTO toRow(ResultSet rs) throws SQLException {
+        return new CommentExportRowDTO(
+                rs.getLong(1),
+                rs.getTimestamp(2).toLocalDateTime(),
+                rs.getString(3),
+                rs.getString(4),
+                rs.getString(5),
+                rs.getLong(6),
+                rs.getBoolean(7),
+                ModerationStatus.valueOf(rs.getString(8)));
+    }
+
+    private void writeRow(Writer writer, ExportFormat format, CommentExportRowDTO row) {
+        try {
+            if (format == ExportFormat.NDJSON) {
+                writer.write(jsonMapper.writeValueAsString(row));
+            } else {
+                writer.write(toCsv(row));
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            // Usually the client went away; abort the query instead of reading the rest of the cursor.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String toCsv(CommentExportRowDTO row) {
+        return String.join(",",
+                String.valueOf(row.id()),
+                row.dateCreated().toString(),
+                csvField(row.authorFirstName()),
+                csvField(row.authorLastName()),
+                csvField(row.content()),
+                String.valueOf(row.approvesNumber()),
+                String.valueOf(row.blocked()),
+                row.moderationStatus().name());
+    }
+
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        // Content is public input and the file is opened in spreadsheets: never let a field start a formula.
+        if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+            return "\"'" + value.replace("\"", "\"\"") + '"';
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,199 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.config.ModerationProperties;
+import WAWRO.PRE_KONSULTACJE.event.CommentEvent;
+import WAWRO.PRE_KONSULTACJE.mapper.CommentMapper;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentDTO;
+import WAWRO.PRE_KONSULTACJE.model.enums.ModerationStatus;
+import WAWRO.PRE_KONSULTACJE.model.projection.CommentClusterMemberView;
+import WAWRO.PRE_KONSULTACJE.model.projection.CommentModerationView;
+import WAWRO.PRE_KONSULTACJE.repository.CommentRepository;
+import WAWRO.PRE_KONSULTACJE.repository.PreConsultationRepository;
+import WAWRO.PRE_KONSULTACJE.utils.AiService;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ValidationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Service
+public class CommentModerationService {
+
+    private static final int QUERY_CHUNK_SIZE = 1000;
+
+    private final CommentRepository commentRepository;
+    private final PreConsultationRepository preConsultationRepository;
+    private final AiService aiService;
+    private final ModerationProperties moderationProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CommentMapper commentMapper;
+    private final TransactionTemplate transaction;
+    private final ExecutorService callbackExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("moderation-callback-", 0).factory());
+
+    public CommentModerationService(CommentRepository commentRepository,
+                                    PreConsultationRepository preConsultationRepository,
+                                    AiService aiService,
+                                    ModerationProperties moderationProperties,
+                                    ApplicationEventPublisher eventPublisher,
+                                    CommentMapper commentMapper,
+                                    PlatformTransactionManager transactionManager) {
+        this.commentRepository = commentRepository;
+        this.preConsultationRepository = preConsultationRepository;
+        this.aiService = aiService;
+        this.moderationProperties = moderationProperties;
+        this.eventPublisher = eventPublisher;
+        this.commentMapper = commentMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Moderates the given comments one near-duplicate cluster at a time: a cluster whose
+     * representative already has a verdict reuses it, the others send one copy to the AI service.
+     * Each verdict is then applied to every comment of the cluster still PENDING, including
+     * copies that are not part of this batch.
+     */
+    // Deliberately not @Transactional: the AI round-trip must not hold a DB connection.
+    public int moderateBatch(Collection<Long> commentIds) {
+        ModerationPlan plan = plan(commentIds);
+        if (plan == null) {
+            return 0;
+        }
+        List<String> verdicts = plan.representatives().isEmpty()
+                ? List.of()
+                : aiService.validateComments(plan.contents(), moderationProperties.getAiConcurrency());
+        return apply(plan, verdicts);
+    }
+
+    /**
+     * Moderates one comment right away without holding the caller's thread while the AI service
+     * answers; only the database work before and after the call runs on a (virtual) thread.
+     * A comment that is no longer PENDING is returned as it is.
+     */
+    public CompletableFuture<CommentDTO> moderateNow(Long commentId) {
+        ModerationPlan plan = plan(List.of(commentId));
+        if (plan == null) {
+            return CompletableFuture.completedFuture(findDto(commentId));
+        }
+        CompletableFuture<List<String>> verdicts = plan.representatives().isEmpty()
+                ? CompletableFuture.completedFuture(List.of())
+                : aiService.validateCommentsAsync(plan.contents(), moderationProperties.getAiConcurrency());
+        // Continue off the HTTP client's event loop: the rest is blocking JDBC.
+        return verdicts.thenApplyAsync(result -> {
+            apply(plan, result);
+            return findDto(commentId);
+        }, callbackExecutor);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        callbackExecutor.shutdown();
+    }
+
+    private ModerationPlan plan(Collection<Long> commentIds) {
+        List<CommentModerationView> candidates =
+                commentRepository.findModerationViews(commentIds, ModerationStatus.PENDING);
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        Map<Long, ModerationStatus> statusByCluster = new HashMap<>();
+        Map<Long, CommentModerationView> unresolved = new LinkedHashMap<>();
+        for (CommentModerationView candidate : candidates) {
+            if (isReusableVerdict(candidate.getClusterStatus())) {
+                statusByCluster.put(candidate.getClusterKey(), candidate.getClusterStatus());
+            } else {
+                unresolved.putIfAbsent(candidate.getClusterKey(), candidate);
+            }
+        }
+        return new ModerationPlan(statusByCluster, List.copyOf(unresolved.values()));
+    }
+
+    private int apply(ModerationPlan plan, List<String> verdicts) {
+        Map<Long, ModerationStatus> statusByCluster = new HashMap<>(plan.statusByCluster());
+        for (int i = 0; i < plan.representatives().size(); i++) {
+            statusByCluster.put(plan.representatives().get(i).getClusterKey(), ModerationStatus.fromVerdict(verdicts.get(i)));
+        }
+
+        List<CommentClusterMemberView> members = new ArrayList<>();
+        for (List<Long> clusterKeys : chunks(List.copyOf(statusByCluster.keySet()))) {
+            members.addAll(commentRepository.findClusterMembers(clusterKeys, ModerationStatus.PENDING));
+        }
+        Map<Long, Map<ModerationStatus, List<Long>>> idsByConsultation = new HashMap<>();
+        for (CommentClusterMemberView member : members) {
+            ModerationStatus status = statusByCluster.get(member.getClusterKey());
+            idsByConsultation
+                    .computeIfAbsent(member.getPreConsultationId(), id -> new EnumMap<>(ModerationStatus.class))
+                    .computeIfAbsent(status, s -> new ArrayList<>())
+                    .add(member.getId());
+        }
+
+        int moderated = 0;
+        for (Map.Entry<Long, Map<ModerationStatus, List<Long>>> consultation : idsByConsultation.entrySet()) {
+            Long consultationId = consultation.getKey();
+            for (Map.Entry<ModerationStatus, List<Long>> group : consultation.getValue().entrySet()) {
+                ModerationStatus status = group.getKey();
+                for (List<Long> ids : chunks(group.getValue())) {
+                    moderated += transaction.execute(tx -> applyChunk(consultationId, status, ids));
+                }
+            }
+        }
+        return moderated;
+    }
+
+    // Runs in one transaction: comments hidden without their counters moved would stay wrong
+    // until the next counter repair. Events go out after the commit.
+    private int applyChunk(Long consultationId, ModerationStatus status, List<Long> ids) {
+        List<Long> updated = commentRepository.updateModerationStatus(
+                ids, ModerationStatus.PENDING.name(), status.name(), status.hidesComment());
+        // Only rows that actually left PENDING move between the counters or reach the
+        // stream; a concurrent moderator action on the same comment already did both.
+        if (!updated.isEmpty() && status.hidesComment()) {
+            preConsultationRepository.adjustCounters(consultationId, -updated.size(), updated.size(), 0);
+        }
+        updated.forEach(id -> eventPublisher.publishEvent(
+                new CommentEvent(consultationId, id, CommentEvent.Type.MODERATED)));
+        return updated.size();
+    }
+
+    // Keeps every IN list well below PostgreSQL's limit of 65535 bind parameters per statement.
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += QUERY_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + QUERY_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+    private CommentDTO findDto(Long commentId) {
+        return commentRepository.findWithAuthorById(commentId)
+                .map(commentMapper::toDto)
+                .orElseThrow(() -> new ValidationException("Comment not found with ID: " + commentId));
+    }
+
+    // NEEDS_REVIEW may come from the profanity filter on the representative's own wording, so it is not inherited.
+    private static boolean isReusableVerdict(ModerationStatus status) {
+        return status == ModerationStatus.APPROVED || status == ModerationStatus.BLOCKED
+                || status == ModerationStatus.REJECTED;
+    }
+
+    private record ModerationPlan(Map<Long, ModerationStatus> statusByCluster,
+                                  List<CommentModerationView> representatives) {
+
+        List<String> contents() {
+            return representatives.stream().map(CommentModerationView::getContent).toList();
+        }
+    }
+}
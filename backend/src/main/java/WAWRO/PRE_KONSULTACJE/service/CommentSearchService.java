@@ -0,0 +1,38 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.config.CommentProperties;
+import WAWRO.PRE_KONSULTACJE.mapper.CommentMapper;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentSearchHitDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.PageDTO;
+import WAWRO.PRE_KONSULTACJE.repository.CommentRepository;
+import jakarta.validation.ValidationException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+public class CommentSearchService {
+
+    private final CommentRepository commentRepository;
+    private final CommentMapper commentMapper;
+    private final CommentProperties commentProperties;
+
+    /**
+     * Ranked full-text search in web-search syntax: quoted phrases, {@code or} and {@code -excluded} words.
+     * Case and Polish diacritics are ignored on both sides.
+     */
+    @Transactional(readOnly = true)
+    public PageDTO<CommentSearchHitDTO> search(String query, Long consultationId, boolean includeBlocked,
+                                               int page, Integer size) {
+        String trimmed = query == null ? "" : query.strip();
+        if (trimmed.length() < commentProperties.getSearchMinQueryLength()) {
+            throw new ValidationException("Search query must have at least "
+                    + commentProperties.getSearchMinQueryLength() + " characters");
+        }
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), commentProperties.resolvePageSize(size));
+        return PageDTO.from(commentRepository.search(trimmed, consultationId, includeBlocked, pageRequest)
+                .map(commentMapper::toSearchHitDto));
+    }
+}
@@ -1,33 +1,54 @@
 package WAWRO.PRE_KONSULTACJE.service;
 
+import WAWRO.PRE_KONSULTACJE.config.CommentProperties;
+import WAWRO.PRE_KONSULTACJE.event.ApprovalToggledEvent;
+import WAWRO.PRE_KONSULTACJE.event.CommentEvent;
 import WAWRO.PRE_KONSULTACJE.mapper.CommentMapper;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentClusterDTO;
 import WAWRO.PRE_KONSULTACJE.model.dto.CommentCreateAnalogDTO;
 import WAWRO.PRE_KONSULTACJE.model.dto.CommentCreateDTO;
 import WAWRO.PRE_KONSULTACJE.model.dto.CommentDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentPageDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.PageDTO;
 import WAWRO.PRE_KONSULTACJE.model.entity.Comment;
 import WAWRO.PRE_KONSULTACJE.model.entity.PreConsultation;
 import WAWRO.PRE_KONSULTACJE.model.entity.User;
+import WAWRO.PRE_KONSULTACJE.model.enums.ModerationStatus;
+import WAWRO.PRE_KONSULTACJE.repository.CommentApprovalRepository;
 import WAWRO.PRE_KONSULTACJE.repository.CommentRepository;
 import WAWRO.PRE_KONSULTACJE.repository.PreConsultationRepository;
-import WAWRO.PRE_KONSULTACJE.utils.AiService;
+import WAWRO.PRE_KONSULTACJE.utils.ApprovalIndex;
+import WAWRO.PRE_KONSULTACJE.utils.CommentCursor;
+import WAWRO.PRE_KONSULTACJE.utils.MinHash;
+import WAWRO.PRE_KONSULTACJE.utils.NearDuplicateIndex;
+import WAWRO.PRE_KONSULTACJE.utils.ProfanityFilter;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "service.calls", histogram = true)
 public class CommentService {
 
     private final CommentRepository commentRepository;
+    private final CommentApprovalRepository commentApprovalRepository;
     private final PreConsultationRepository preConsultationRepository;
     private final CommentMapper commentMapper;
     private final UserService userService;
-    private final AiService aiService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProfanityFilter profanityFilter;
+    private final CommentProperties commentProperties;
+    private final ApprovalIndex approvalIndex;
+    private final NearDuplicateIndex nearDuplicateIndex;
 
 
     @Transactional
@@ -36,20 +57,38 @@ public class CommentService {
         User author = userService.getLoggedUser();
         Comment comment = buildComment(author,consultationId);
         comment.setContent(createDTO.content());
-        //comment.setBlocked(!validateContent(createDTO.content()));
-        Comment savedComment = commentRepository.save(comment);
-        return commentMapper.toDto(savedComment);
+        return saveForModeration(comment);
     }
 
     @Transactional
     public CommentDTO createComment(Long consultationId, CommentCreateAnalogDTO createDTO) {
 
-        User author = userService.createAnalogUser(createDTO.firstName(), createDTO.lastName());
+        User author = userService.resolveAnalogUser(createDTO.firstName(), createDTO.lastName(), createDTO.address());
         Comment comment = buildComment(author,consultationId);
         comment.setContent(createDTO.content());
-        //todo uncoment when ai service works
-        //comment.setBlocked(!validateContent(createDTO.content()));
+        return saveForModeration(comment);
+    }
+
+    private CommentDTO saveForModeration(Comment comment) {
+        ModerationStatus status = profanityFilter.containsProfanity(comment.getContent())
+                ? ModerationStatus.NEEDS_REVIEW
+                : ModerationStatus.PENDING;
+        comment.setModerationStatus(status);
+        comment.setBlocked(status.hidesComment());
+        Long consultationId = comment.getPreConsultation().getId();
+        int[] signature = MinHash.signature(comment.getContent());
+        Long clusterId = nearDuplicateIndex.findCluster(consultationId, signature);
+        comment.setClusterId(clusterId);
         Comment savedComment = commentRepository.save(comment);
+        nearDuplicateIndex.addAfterCommit(consultationId, signature,
+                clusterId != null ? clusterId : savedComment.getId());
+        if (comment.isBlocked()) {
+            preConsultationRepository.adjustCounters(consultationId, 0, 1, 0);
+        } else {
+            preConsultationRepository.adjustCounters(consultationId, 1, 0, 0);
+        }
+        eventPublisher.publishEvent(new CommentEvent(
+                consultationId, savedComment.getId(), CommentEvent.Type.CREATED));
         return commentMapper.toDto(savedComment);
     }
 
@@ -63,53 +102,98 @@ public class CommentService {
         return comment;
     }
 
-    private boolean validateContent(String content) {
-        return aiService.validateComment(content).equals("OK");
-    }
-
+    /**
+     * Conditional UPDATEs rather than a read-modify-save: of two concurrent moderator actions, or
+     * of a moderator and the moderation worker, only the one that changes the row moves the counters.
+     */
     @Transactional
     public CommentDTO unblockComment(Long commentId) {
-        Comment comment = commentRepository.findByIdOrThrow(commentId);
-        comment.setBlocked(false);
-        Comment savedComment = commentRepository.save(comment);
-        return commentMapper.toDto(savedComment);
+        Long consultationId = commentRepository.findByIdOrThrow(commentId).getPreConsultation().getId();
+        if (commentRepository.updateBlockStatus(commentId, true, false, ModerationStatus.APPROVED) > 0) {
+            preConsultationRepository.adjustCounters(consultationId, 1, -1, 0);
+            eventPublisher.publishEvent(new CommentEvent(consultationId, commentId, CommentEvent.Type.UNBLOCKED));
+        } else {
+            // Already visible: approving it still settles a pending moderation.
+            commentRepository.updateBlockStatus(commentId, false, false, ModerationStatus.APPROVED);
+        }
+        return commentMapper.toDto(commentRepository.findByIdOrThrow(commentId));
+    }
+
+    @Transactional(readOnly = true)
+    public CommentPageDTO getActiveCommentsPage(Long consultationId, String cursor, Integer size) {
+        int pageSize = commentProperties.resolvePageSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<Comment> comments;
+        if (cursor == null || cursor.isBlank()) {
+            comments = commentRepository.findActivePage(consultationId, limit);
+        } else {
+            CommentCursor after = CommentCursor.decode(cursor);
+            comments = commentRepository.findActivePageAfter(consultationId, after.dateCreated(), after.id(), limit);
+        }
+
+        boolean hasNext = comments.size() > pageSize;
+        List<Comment> page = hasNext ? comments.subList(0, pageSize) : comments;
+        String nextCursor = hasNext ? CommentCursor.of(page.getLast()).encode() : null;
+        Long userId = userService.getLoggedUser().getId();
+        return new CommentPageDTO(
+                page.stream()
+                        .map(comment -> withApprovals(commentMapper.toDto(comment), userId))
+                        .collect(Collectors.toList()),
+                nextCursor);
     }
 
+    /**
+     * Near-duplicate clusters of a consultation, largest first, each with its representative comment.
+     */
     @Transactional(readOnly = true)
-    public List<CommentDTO> getActiveCommentsByConsultationId(Long consultationId) {
-        return commentRepository.findAllByPreConsultationIdAndBlockedFalse(consultationId).stream()
-                .map(commentMapper::toDto)
-                .collect(Collectors.toList());
+    public PageDTO<CommentClusterDTO> getClusters(Long consultationId, long minSize, int page, Integer size) {
+        preConsultationRepository.findByIdOrThrow(consultationId);
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), commentProperties.resolvePageSize(size));
+        return PageDTO.from(commentRepository.findClusters(consultationId, Math.max(minSize, 1), pageRequest)
+                .map(commentMapper::toClusterDto));
     }
 
     @Transactional(readOnly = true)
-    public List<CommentDTO> getAllBlockedCommentsSorted() {
-        return commentRepository.findAllByBlockedTrueOrderByDateCreatedDesc().stream()
-                .map(commentMapper::toDto)
-                .collect(Collectors.toList());
+    public PageDTO<CommentDTO> getBlockedComments(int page, Integer size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), commentProperties.resolvePageSize(size));
+        return PageDTO.from(commentRepository.findBlockedPage(pageRequest).map(commentMapper::toDto));
     }
 
     @Transactional
     public CommentDTO toggleBlockStatus(Long commentId) {
-        Comment comment = commentRepository.findByIdOrThrow(commentId);
-        comment.setBlocked(true);
-        commentRepository.save(comment);
-        return commentMapper.toDto(comment);
+        Long consultationId = commentRepository.findByIdOrThrow(commentId).getPreConsultation().getId();
+        if (commentRepository.updateBlockStatus(commentId, false, true, ModerationStatus.REJECTED) > 0) {
+            preConsultationRepository.adjustCounters(consultationId, -1, 1, 0);
+            eventPublisher.publishEvent(new CommentEvent(consultationId, commentId, CommentEvent.Type.BLOCKED));
+        } else {
+            // Already hidden by the moderation worker: REJECTED keeps it out of the review queue.
+            commentRepository.updateBlockStatus(commentId, true, true, ModerationStatus.REJECTED);
+        }
+        return commentMapper.toDto(commentRepository.findByIdOrThrow(commentId));
     }
 
     @Transactional
     public CommentDTO toggleApprove(Long commentId) {
         User user = userService.getLoggedUser();
         Comment comment = commentRepository.findByIdOrThrow(commentId);
-        Set<Long> approves = comment.getApproves();
 
-        if (approves.contains(user.getId())) {
-            approves.remove(user.getId());
-        } else {
-            approves.add(user.getId());
+        long delta = commentApprovalRepository.toggle(commentId, user.getId());
+        if (delta == 0) {
+            return withApprovals(commentMapper.toDto(comment), user.getId());
         }
-        commentRepository.save(comment);
-        return commentMapper.toDto(comment);
+        Long consultationId = comment.getPreConsultation().getId();
+        preConsultationRepository.adjustCounters(consultationId, 0, 0, delta);
+        commentRepository.adjustApprovalCount(commentId, delta);
+        eventPublisher.publishEvent(new ApprovalToggledEvent(consultationId, commentId, user.getId(), delta > 0));
+
+        // The index only sees the toggle after commit, so answer from the freshly updated row.
+        CommentDTO updated = commentMapper.toDto(commentRepository.findByIdOrThrow(commentId));
+        return updated.withApprovals(updated.approvesNumber(), delta > 0);
     }
 
+    private CommentDTO withApprovals(CommentDTO comment, Long userId) {
+        return comment.withApprovals(
+                approvalIndex.count(comment.id()),
+                approvalIndex.isApprovedBy(comment.id(), userId));
+    }
 }
@@ -0,0 +1,285 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.config.CommentProperties;
+import WAWRO.PRE_KONSULTACJE.event.ApprovalToggledEvent;
+import WAWRO.PRE_KONSULTACJE.event.CommentEvent;
+import WAWRO.PRE_KONSULTACJE.mapper.CommentMapper;
+import WAWRO.PRE_KONSULTACJE.model.dto.ApprovalCountDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentRemovedDTO;
+import WAWRO.PRE_KONSULTACJE.model.entity.Comment;
+import WAWRO.PRE_KONSULTACJE.repository.CommentRepository;
+import WAWRO.PRE_KONSULTACJE.repository.PreConsultationRepository;
+import WAWRO.PRE_KONSULTACJE.utils.ApprovalIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out of comment changes to Server-Sent Events subscribers, per consultation.
+ * <p>
+ * Idle subscribers hold no thread: the servlet request is async and each subscriber only gets a
+ * virtual thread while it has events to write. Every subscriber has a small bounded queue; one that
+ * cannot keep up is disconnected rather than slowing the others down (EventSource reconnects and
+ * the client refetches). Approval toggles are collected per consultation and flushed as one
+ * count per comment on a short interval. Other comment changes are collected the same way and
+ * loaded in one query per consultation at flush time, so neither a bulk import nor a cluster
+ * verdict turns into one query per comment on the thread that published it.
+ */
+@Slf4j
+@Component
+public class CommentStreamHub {
+
+    static final String COMMENT_CREATED = "comment-created";
+    static final String COMMENT_BLOCKED = "comment-blocked";
+    static final String COMMENT_UNBLOCKED = "comment-unblocked";
+    static final String APPROVAL_COUNT = "approval-count";
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> pendingApprovals = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Long, Set<CommentEvent.Type>>> pendingChanges = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("comment-stream-", 0).factory());
+
+    private final CommentRepository commentRepository;
+    private final PreConsultationRepository preConsultationRepository;
+    private final CommentMapper commentMapper;
+    private final ApprovalIndex approvalIndex;
+    private final CommentProperties.Stream properties;
+
+    private final Counter sentCounter;
+    private final Counter shedCounter;
+
+    public CommentStreamHub(CommentRepository commentRepository,
+                            PreConsultationRepository preConsultationRepository,
+                            CommentMapper commentMapper,
+                            ApprovalIndex approvalIndex,
+                            CommentProperties commentProperties,
+                            MeterRegistry meterRegistry) {
+        this.commentRepository = commentRepository;
+        this.preConsultationRepository = preConsultationRepository;
+        this.commentMapper = commentMapper;
+        this.approvalIndex = approvalIndex;
+        this.properties = commentProperties.getStream();
+
+        Gauge.builder("comments.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .register(meterRegistry);
+        this.sentCounter = meterRegistry.counter("comments.stream.events.sent");
+        this.shedCounter = meterRegistry.counter("comments.stream.subscribers.shed");
+    }
+
+    public SseEmitter subscribe(Long consultationId) {
+        preConsultationRepository.findByIdOrThrow(consultationId);
+
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        Subscriber subscriber = new Subscriber(consultationId, emitter);
+        subscribers.compute(consultationId, (id, group) -> addTo(group, subscriber));
+        subscriberCount.incrementAndGet();
+
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentEvent(CommentEvent event) {
+        if (!subscribers.containsKey(event.consultationId())) {
+            return;
+        }
+        if (event.type() == CommentEvent.Type.BLOCKED) {
+            broadcast(event.consultationId(), COMMENT_BLOCKED, new CommentRemovedDTO(event.commentId()));
+            return;
+        }
+        pendingChanges.compute(event.consultationId(), (id, changes) -> {
+            // Keeps publication order, so subscribers see new comments in the order they were created.
+            Map<Long, Set<CommentEvent.Type>> target = changes != null ? changes : new LinkedHashMap<>();
+            target.computeIfAbsent(event.commentId(), commentId -> EnumSet.noneOf(CommentEvent.Type.class))
+                    .add(event.type());
+            return target;
+        });
+    }
+
+    /**
+     * Sends what the buffered changes amount to in the comments' current state: a comment created
+     * and already hidden within one window is never announced, one moderated but still visible
+     * needs no event at all.
+     */
+    @Scheduled(fixedDelayString = "${app.comments.stream.change-flush-interval:PT0.2S}")
+    public void flushCommentChanges() {
+        for (Long consultationId : pendingChanges.keySet()) {
+            Map<Long, Set<CommentEvent.Type>> changes = pendingChanges.remove(consultationId);
+            if (changes == null || !subscribers.containsKey(consultationId)) {
+                continue;
+            }
+            Map<Long, Comment> comments = new HashMap<>();
+            List<Long> ids = List.copyOf(changes.keySet());
+            for (int from = 0; from < ids.size(); from += LOAD_CHUNK_SIZE) {
+                commentRepository.findWithAuthorByIdIn(ids.subList(from, Math.min(from + LOAD_CHUNK_SIZE, ids.size())))
+                        .forEach(comment -> comments.put(comment.getId(), comment));
+            }
+            changes.forEach((commentId, types) -> {
+                Comment comment = comments.get(commentId);
+                if (comment != null) {
+                    broadcastChange(consultationId, comment, types);
+                }
+            });
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onApprovalToggled(ApprovalToggledEvent event) {
+        if (subscribers.containsKey(event.consultationId())) {
+            pendingApprovals.compute(event.consultationId(), (id, commentIds) -> addTo(commentIds, event.commentId()));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.comments.stream.approval-flush-interval:PT0.5S}")
+    public void flushApprovalCounts() {
+        for (Long consultationId : pendingApprovals.keySet()) {
+            Set<Long> commentIds = pendingApprovals.remove(consultationId);
+            if (commentIds == null) {
+                continue;
+            }
+            // Read at flush time: however many toggles happened in the window, one current count goes out.
+            commentIds.forEach(commentId -> broadcast(consultationId, APPROVAL_COUNT,
+                    new ApprovalCountDTO(commentId, approvalIndex.count(commentId))));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.comments.stream.heartbeat:PT15S}")
+    public void heartbeat() {
+        subscribers.values().forEach(group -> group.forEach(subscriber -> subscriber.enqueue(StreamEvent.HEARTBEAT)));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.values().forEach(group -> group.forEach(subscriber -> subscriber.emitter.complete()));
+        senders.shutdownNow();
+    }
+
+    int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    // Adding inside compute() keeps the add atomic with concurrent removal of an emptied set.
+    private static <T> Set<T> addTo(Set<T> set, T element) {
+        Set<T> target = set != null ? set : ConcurrentHashMap.newKeySet();
+        target.add(element);
+        return target;
+    }
+
+    private void broadcastChange(Long consultationId, Comment comment, Set<CommentEvent.Type> types) {
+        boolean created = types.contains(CommentEvent.Type.CREATED);
+        if (comment.isBlocked()) {
+            if (!created && types.contains(CommentEvent.Type.MODERATED)) {
+                broadcast(consultationId, COMMENT_BLOCKED, new CommentRemovedDTO(comment.getId()));
+            }
+        } else if (created || types.contains(CommentEvent.Type.UNBLOCKED)) {
+            CommentDTO dto = commentMapper.toDto(comment).withApprovals(approvalIndex.count(comment.getId()), false);
+            broadcast(consultationId, created ? COMMENT_CREATED : COMMENT_UNBLOCKED, dto);
+        }
+    }
+
+    private void broadcast(Long consultationId, String name, Object data) {
+        Set<Subscriber> group = subscribers.get(consultationId);
+        if (group != null) {
+            StreamEvent event = new StreamEvent(name, data);
+            group.forEach(subscriber -> subscriber.enqueue(event));
+        }
+    }
+
+    private record StreamEvent(String name, Object data) {
+
+        static final StreamEvent HEARTBEAT = new StreamEvent(null, null);
+
+        SseEmitter.SseEventBuilder toSse() {
+            if (this == HEARTBEAT) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            return SseEmitter.event().name(name).data(data);
+        }
+    }
+
+    private final class Subscriber {
+
+        private final Long consultationId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<StreamEvent> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(Long consultationId, SseEmitter emitter) {
+            this.consultationId = consultationId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(properties.getSubscriberQueueCapacity());
+        }
+
+        void enqueue(StreamEvent event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                shedCounter.increment();
+                log.debug("Disconnecting slow comment stream subscriber of consultation {}", consultationId);
+                close();
+                emitter.complete();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                StreamEvent event;
+                while ((event = queue.poll()) != null) {
+                    try {
+                        emitter.send(event.toSse());
+                        sentCounter.increment();
+                    } catch (IOException | IllegalStateException e) {
+                        close();
+                        return;
+                    }
+                }
+                draining.set(false);
+                // An event may have been queued after the last poll but before the flag was cleared.
+            } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                queue.clear();
+                subscriberCount.decrementAndGet();
+                subscribers.computeIfPresent(consultationId, (id, group) -> {
+                    group.remove(this);
+                    return group.isEmpty() ? null : group;
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.config.ConsultationProperties;
+import WAWRO.PRE_KONSULTACJE.model.dto.PreConsultationDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Function;
+
+/**
+ * Read-through cache of consultation detail DTOs. A miss loads inside its own read-only
+ * transaction, so hits never open a connection.
+ * <p>
+ * Entries are dropped after the mutating transaction commits, by {@link ConsultationVersionTracker}
+ * just before it bumps the ETag. Because Caffeine computes a key atomically, a load that read
+ * pre-commit data finishes before the invalidation removes it, so a stale DTO is never served
+ * under the new ETag.
+ */
+@Component
+public class ConsultationDetailCache {
+
+    private final Cache<Long, PreConsultationDTO> cache;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ConsultationDetailCache(ConsultationProperties properties,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        ConsultationProperties.DetailCache config = properties.getDetailCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "consultation.details");
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public PreConsultationDTO get(Long consultationId, Function<Long, PreConsultationDTO> loader) {
+        return cache.get(consultationId, id -> readOnlyTransaction.execute(status -> loader.apply(id)));
+    }
+
+    public void invalidate(Long consultationId) {
+        cache.invalidate(consultationId);
+    }
+}
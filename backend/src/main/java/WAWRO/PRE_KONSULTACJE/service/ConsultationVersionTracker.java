@@ -0,0 +1,67 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.event.ApprovalToggledEvent;
+import WAWRO.PRE_KONSULTACJE.event.CommentEvent;
+import WAWRO.PRE_KONSULTACJE.event.ConsultationEvent;
+import WAWRO.PRE_KONSULTACJE.utils.ApprovalIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-consultation version stamp used as a strong ETag for the consultation and its comments.
+ * Versions are bumped after commit, so a caller that reads the ETag before loading data can never
+ * pair new data with an old stamp for longer than one request. The epoch makes stamps from a
+ * previous JVM (or another instance) never match.
+ * <p>
+ * This is the only after-commit listener for the in-memory read models behind the ETag (the
+ * detail cache and the approval index): each listener refreshes them first and bumps the version
+ * last. With independent listeners a request
+ * landing between the bump and the refresh would get the new ETag with old data and keep it, as
+ * every later {@code If-None-Match} would be answered 304.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConsultationVersionTracker {
+
+    private final ConsultationDetailCache detailCache;
+    private final ApprovalIndex approvalIndex;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public String etag(Long consultationId) {
+        AtomicLong version = versions.get(consultationId);
+        return "\"" + epoch + "-" + consultationId + "-" + (version == null ? 0 : version.get()) + "\"";
+    }
+
+    public void bump(Long consultationId) {
+        versions.computeIfAbsent(consultationId, id -> new AtomicLong()).incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentEvent(CommentEvent event) {
+        detailCache.invalidate(event.consultationId());
+        bump(event.consultationId());
+    }
+
+    // Ahead of the other after-commit listeners: the comment stream reads counts from the index.
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onApprovalToggled(ApprovalToggledEvent event) {
+        approvalIndex.onApprovalToggled(event);
+        detailCache.invalidate(event.consultationId());
+        bump(event.consultationId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onConsultationEvent(ConsultationEvent event) {
+        detailCache.invalidate(event.consultationId());
+        bump(event.consultationId());
+    }
+}
@@ -0,0 +1,86 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.event.ConsultationEvent;
+import WAWRO.PRE_KONSULTACJE.model.dto.CounterDriftDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.CounterRepairReportDTO;
+import WAWRO.PRE_KONSULTACJE.model.projection.CounterDriftView;
+import WAWRO.PRE_KONSULTACJE.repository.CommentRepository;
+import WAWRO.PRE_KONSULTACJE.repository.PreConsultationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Recomputes the denormalized counters on preconsultations from the comments table
+ * and reports every row whose stored value had drifted. Corrections are applied as a difference
+ * against the current value, so the repair never undoes a concurrent counter update.
+ */
+@Slf4j
+@Service
+public class CounterRepairService {
+
+    private final PreConsultationRepository preConsultationRepository;
+    private final CommentRepository commentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter driftCounter;
+
+    public CounterRepairService(PreConsultationRepository preConsultationRepository,
+                                CommentRepository commentRepository,
+                                ApplicationEventPublisher eventPublisher,
+                                MeterRegistry meterRegistry) {
+        this.preConsultationRepository = preConsultationRepository;
+        this.commentRepository = commentRepository;
+        this.eventPublisher = eventPublisher;
+        this.driftCounter = meterRegistry.counter("preconsultation.counters.drift");
+    }
+
+    @Scheduled(initialDelayString = "${app.counters.repair-initial-delay:PT10S}",
+            fixedDelayString = "${app.counters.repair-delay:PT1H}")
+    public void scheduledRepair() {
+        repair();
+    }
+
+    @Transactional
+    public CounterRepairReportDTO repair() {
+        // Per-comment counts first, the consultation totals are derived from them.
+        List<Long> repairedCommentConsultations = commentRepository.repairApprovalCounts();
+        int commentsRepaired = repairedCommentConsultations.size();
+        if (commentsRepaired > 0) {
+            driftCounter.increment(commentsRepaired);
+            log.warn("Repaired approval counts of {} comments", commentsRepaired);
+        }
+
+        List<CounterDriftDTO> drift = preConsultationRepository.findCounterDrift().stream()
+                .map(this::toDto)
+                .toList();
+        int repaired = 0;
+        if (!drift.isEmpty()) {
+            repaired = preConsultationRepository.recomputeCounters(
+                    drift.stream().map(CounterDriftDTO::consultationId).toList());
+            driftCounter.increment(drift.size());
+            log.warn("Repaired counters of {} pre-consultations: {}", repaired, drift);
+        }
+
+        // Cached details and ETags of every consultation whose numbers changed must follow.
+        Set<Long> changed = new TreeSet<>(repairedCommentConsultations);
+        drift.forEach(row -> changed.add(row.consultationId()));
+        changed.forEach(id -> eventPublisher.publishEvent(new ConsultationEvent(id, ConsultationEvent.Type.UPDATED)));
+        return new CounterRepairReportDTO(commentsRepaired, repaired, drift);
+    }
+
+    private CounterDriftDTO toDto(CounterDriftView view) {
+        return new CounterDriftDTO(
+                view.getId(),
+                view.getStoredActive(), view.getActualActive(),
+                view.getStoredBlocked(), view.getActualBlocked(),
+                view.getStoredApprovals(), view.getActualApprovals());
+    }
+}
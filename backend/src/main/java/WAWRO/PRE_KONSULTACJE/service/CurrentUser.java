@@ -0,0 +1,34 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.model.entity.User;
+import WAWRO.PRE_KONSULTACJE.model.enums.Role;
+
+/**
+ * Immutable snapshot of the authenticated user, cheap enough to cache per subject.
+ */
+public record CurrentUser(
+        Long id,
+        String subject,
+        String firstName,
+        String lastName,
+        Role role
+) {
+
+    static CurrentUser of(String subject, User user) {
+        return new CurrentUser(user.getId(), subject, user.getFirstName(), user.getLastName(), user.getRole());
+    }
+
+    /**
+     * Detached entity carrying just enough state to be used as an association target
+     * (e.g. a comment author) and mapped to an author DTO, without loading the row.
+     */
+    public User toUser() {
+        return User.builder()
+                .id(id)
+                .email(subject)
+                .firstName(firstName)
+                .lastName(lastName)
+                .role(role)
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.config.ModerationProperties;
+import WAWRO.PRE_KONSULTACJE.event.CommentEvent;
+import WAWRO.PRE_KONSULTACJE.model.enums.ModerationStatus;
+import WAWRO.PRE_KONSULTACJE.repository.CommentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-process queue between comment creation and AI moderation.
+ * Producers never block: when the queue is full the comment simply stays PENDING
+ * and is picked up again by the periodic sweep.
+ */
+@Slf4j
+@Component
+public class ModerationQueue {
+
+    private final BlockingQueue<Long> queue;
+    private final Set<Long> queuedIds = ConcurrentHashMap.newKeySet();
+    private final CommentModerationService moderationService;
+    private final CommentRepository commentRepository;
+    private final ModerationProperties properties;
+    private final ExecutorService workers;
+
+    private final Counter enqueuedCounter;
+    private final Counter rejectedCounter;
+    private final Counter moderatedCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+
+    private volatile boolean running;
+
+    public ModerationQueue(CommentModerationService moderationService,
+                           CommentRepository commentRepository,
+                           ModerationProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.moderationService = moderationService;
+        this.commentRepository = commentRepository;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.workers = Executors.newFixedThreadPool(properties.getWorkers(),
+                Thread.ofPlatform().name("moderation-worker-", 0).daemon().factory());
+
+        Gauge.builder("moderation.queue.size", queue, BlockingQueue::size)
+                .description("Comments waiting for AI moderation")
+                .register(meterRegistry);
+        Gauge.builder("moderation.queue.remaining.capacity", queue, BlockingQueue::remainingCapacity)
+                .register(meterRegistry);
+        this.enqueuedCounter = meterRegistry.counter("moderation.queue.enqueued");
+        this.rejectedCounter = meterRegistry.counter("moderation.queue.rejected");
+        this.moderatedCounter = meterRegistry.counter("moderation.comments.moderated");
+        this.failedCounter = meterRegistry.counter("moderation.comments.failed");
+        this.batchTimer = Timer.builder("moderation.batch.duration")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        for (int i = 0; i < properties.getWorkers(); i++) {
+            workers.submit(this::runWorker);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        workers.shutdownNow();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentEvent(CommentEvent event) {
+        if (event.type() == CommentEvent.Type.CREATED) {
+            offer(event.commentId());
+        }
+    }
+
+    public boolean offer(Long commentId) {
+        if (!queuedIds.add(commentId)) {
+            return true;
+        }
+        if (queue.offer(commentId)) {
+            enqueuedCounter.increment();
+            return true;
+        }
+        queuedIds.remove(commentId);
+        rejectedCounter.increment();
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${app.moderation.sweep-delay:PT1M}")
+    public void requeueStalePending() {
+        int limit = Math.min(queue.remainingCapacity(), properties.getSweepLimit());
+        if (limit <= 0) {
+            return;
+        }
+        LocalDateTime before = LocalDateTime.now().minus(properties.getSweepDelay());
+        List<Long> staleIds = commentRepository.findIdsByModerationStatusCreatedBefore(
+                ModerationStatus.PENDING, before, Limit.of(limit));
+        staleIds.forEach(this::offer);
+    }
+
+    private void runWorker() {
+        List<Long> batch = new ArrayList<>(properties.getBatchSize());
+        while (running) {
+            try {
+                Long first = queue.poll(properties.getPollTimeout().toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, properties.getBatchSize() - 1);
+                int moderated = batchTimer.recordCallable(() -> moderationService.moderateBatch(batch));
+                moderatedCounter.increment(moderated);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                failedCounter.increment(batch.size());
+                log.error("Moderation batch of {} comments failed", batch.size(), e);
+            } finally {
+                batch.forEach(queuedIds::remove);
+                batch.clear();
+            }
+        }
+    }
+}
@@ -1,27 +1,40 @@
 package WAWRO.PRE_KONSULTACJE.service;
 
+import WAWRO.PRE_KONSULTACJE.config.CommentProperties;
+import WAWRO.PRE_KONSULTACJE.event.ConsultationEvent;
 import WAWRO.PRE_KONSULTACJE.mapper.PreConsultationMapper;
+import WAWRO.PRE_KONSULTACJE.model.dto.PageDTO;
 import WAWRO.PRE_KONSULTACJE.model.dto.PreConsultationCreateDTO;
 import WAWRO.PRE_KONSULTACJE.model.dto.PreConsultationDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.PreConsultationSummaryDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.SummaryDTO;
 import WAWRO.PRE_KONSULTACJE.model.entity.PreConsultation;
 import WAWRO.PRE_KONSULTACJE.model.entity.User;
+import WAWRO.PRE_KONSULTACJE.model.enums.SummaryType;
 import WAWRO.PRE_KONSULTACJE.repository.PreConsultationRepository;
+import WAWRO.PRE_KONSULTACJE.utils.AiService;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "service.calls", histogram = true)
 public class PreConsultationService {
 
     private final PreConsultationRepository consultationRepository;
     private final PreConsultationMapper consultationMapper;
     private final UserService userService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ConsultationDetailCache consultationDetailCache;
+    private final AiService aiService;
+    private final CommentProperties commentProperties;
 
     @Transactional
     public PreConsultationDTO createConsultation(PreConsultationCreateDTO createDTO) {
@@ -41,19 +54,28 @@ public class PreConsultationService {
         return consultation;
     }
 
-    @Transactional(readOnly = true)
     public PreConsultationDTO getConsultationById(Long id) {
-        PreConsultation consultation = consultationRepository.findByIdOrThrow(id);
-        return consultationMapper.toDto(consultation);
+        return consultationDetailCache.get(id,
+                consultationId -> consultationMapper.toDto(consultationRepository.findDetailByIdOrThrow(consultationId)));
     }
 
     @Transactional(readOnly = true)
-    public List<PreConsultationDTO> getAllConsultations() {
-        Sort sortByCommentsCountDesc = Sort.by(Sort.Direction.DESC, "comments");
-        return consultationRepository.findAllByActiveTrue(sortByCommentsCountDesc).stream()
-                .map(consultationMapper::toDto)
-                .collect(Collectors.toList());
+    public PageDTO<PreConsultationSummaryDTO> getAllConsultations(int page, Integer size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), commentProperties.resolvePageSize(size));
+        return PageDTO.from(consultationRepository.findActiveSummaries(pageRequest)
+                .map(consultationMapper::toSummaryDto));
     }
+
+    /**
+     * Completes when the AI service answers; the calling request thread is not held meanwhile.
+     */
+    public CompletableFuture<SummaryDTO> summarize(Long id, SummaryType type) {
+        PreConsultationDTO consultation = getConsultationById(id);
+        return aiService.summarize(type, consultation.description())
+                .map(SummaryDTO::new)
+                .toFuture();
+    }
+
     @Transactional
     public PreConsultationDTO updateConsultation(Long id, PreConsultationCreateDTO updateDTO) {
 
@@ -61,6 +83,7 @@ public class PreConsultationService {
         consultation.setSubject(updateDTO.subject());
         consultation.setDescription(updateDTO.description());
         consultationRepository.save(consultation);
+        eventPublisher.publishEvent(new ConsultationEvent(id, ConsultationEvent.Type.UPDATED));
         return consultationMapper.toDto(consultation);
     }
 
@@ -70,5 +93,6 @@ public class PreConsultationService {
         PreConsultation consultation = consultationRepository.findByIdOrThrow(id);
         consultation.setActive(false);
         consultationRepository.save(consultation);
+        eventPublisher.publishEvent(new ConsultationEvent(id, ConsultationEvent.Type.DEACTIVATED));
     }
 }
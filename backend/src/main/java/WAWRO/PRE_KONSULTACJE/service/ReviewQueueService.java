@@ -0,0 +1,90 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.config.ModerationProperties;
+import WAWRO.PRE_KONSULTACJE.event.CommentEvent;
+import WAWRO.PRE_KONSULTACJE.mapper.CommentMapper;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.ReviewLeaseDTO;
+import WAWRO.PRE_KONSULTACJE.model.entity.Comment;
+import WAWRO.PRE_KONSULTACJE.model.enums.ModerationStatus;
+import WAWRO.PRE_KONSULTACJE.repository.CommentRepository;
+import jakarta.validation.ValidationException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Hands blocked comments awaiting review (NEEDS_REVIEW, BLOCKED) to moderators in leased batches.
+ * A lease only reserves a comment: it expires on its own, so comments of a moderator who walked
+ * away go back to the queue without any cleanup job.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReviewQueueService {
+
+    private final CommentRepository commentRepository;
+    private final CommentService commentService;
+    private final CommentMapper commentMapper;
+    private final UserService userService;
+    private final ModerationProperties moderationProperties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public ReviewLeaseDTO claim(Integer size) {
+        int limit = size == null || size <= 0
+                ? moderationProperties.getReviewClaimSize()
+                : Math.min(size, moderationProperties.getMaxReviewClaimSize());
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(moderationProperties.getReviewLeaseDuration());
+
+        List<Long> ids = commentRepository.claimForReview(userService.getCurrentUser().id(), now, expiresAt, limit);
+        List<CommentDTO> comments = ids.isEmpty()
+                ? List.of()
+                : commentRepository.findWithAuthorByIdIn(ids).stream().map(commentMapper::toDto).toList();
+        return new ReviewLeaseDTO(comments, expiresAt);
+    }
+
+    @Transactional
+    public int release() {
+        return commentRepository.releaseLeases(userService.getCurrentUser().id());
+    }
+
+    @Transactional
+    public CommentDTO approve(Long commentId) {
+        checkLease(commentRepository.findByIdOrThrow(commentId));
+        return commentService.unblockComment(commentId);
+    }
+
+    @Transactional
+    public CommentDTO reject(Long commentId) {
+        Comment comment = commentRepository.findByIdOrThrow(commentId);
+        checkLease(comment);
+        Long consultationId = comment.getPreConsultation().getId();
+        if (commentRepository.updateBlockedModerationStatus(commentId, ModerationStatus.REJECTED) > 0) {
+            eventPublisher.publishEvent(new CommentEvent(consultationId, commentId, CommentEvent.Type.MODERATED));
+            return commentMapper.toDto(commentRepository.findByIdOrThrow(commentId));
+        }
+        // No lease is needed to decide, so a colleague may have unblocked it since it was loaded.
+        Comment current = commentRepository.findByIdOrThrow(commentId);
+        if (!current.isBlocked()) {
+            throw new ValidationException("Comment is not blocked: " + commentId);
+        }
+        return commentMapper.toDto(current);
+    }
+
+    // Deciding without a lease is fine; overriding a colleague's live lease is not.
+    private void checkLease(Comment comment) {
+        Long moderatorId = userService.getCurrentUser().id();
+        boolean leasedByOther = comment.getLeasedBy() != null
+                && !comment.getLeasedBy().equals(moderatorId)
+                && comment.getLeaseExpiresAt() != null
+                && comment.getLeaseExpiresAt().isAfter(LocalDateTime.now());
+        if (leasedByOther) {
+            throw new ValidationException("Comment " + comment.getId() + " is being reviewed by another moderator");
+        }
+    }
+}
@@ -1,48 +1,106 @@
 package WAWRO.PRE_KONSULTACJE.service;
 
+import WAWRO.PRE_KONSULTACJE.config.UserProperties;
 import WAWRO.PRE_KONSULTACJE.mapper.UserMapper;
 import WAWRO.PRE_KONSULTACJE.model.dto.UserFullDTO;
 import WAWRO.PRE_KONSULTACJE.model.entity.User;
 import WAWRO.PRE_KONSULTACJE.model.enums.Role;
 import WAWRO.PRE_KONSULTACJE.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import WAWRO.PRE_KONSULTACJE.utils.AnalogIdentity;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.stereotype.Service;
-
-import java.util.Optional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 @Service
-@RequiredArgsConstructor
 public class UserService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final AnalogUserResolver analogUserResolver;
+    private final UserProperties userProperties;
+    private final TransactionTemplate newTransaction;
+    private final Cache<String, CurrentUser> usersBySubject;
+
+    public UserService(UserRepository userRepository,
+                       UserMapper userMapper,
+                       AnalogUserResolver analogUserResolver,
+                       UserProperties userProperties,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.analogUserResolver = analogUserResolver;
+        this.userProperties = userProperties;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.usersBySubject = Caffeine.newBuilder()
+                .maximumSize(userProperties.getIdentityCacheSize())
+                .expireAfterWrite(userProperties.getIdentityCacheTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, usersBySubject, "users.identity");
+    }
 
     public UserFullDTO getUserById(long userId) {
         User user = userRepository.findByIdOrThrow(userId);
         return userMapper.toDto(user);
     }
 
-    public User createAnalogUser(String firstName, String lastName){
-        User user = new User();
-        user.setFirstName(firstName);
-        user.setLastName(lastName);
-        user.setRole(Role.ANALOG_USER);
-        userRepository.save(user);
-        return user;
+    public User resolveAnalogUser(String firstName, String lastName, String address) {
+        Long userId = analogUserResolver.resolve(new AnalogIdentity(firstName, lastName, address));
+        return userRepository.getReferenceById(userId);
+    }
+
+    public CurrentUser getCurrentUser() {
+        return usersBySubject.get(currentSubject(), this::loadUser);
     }
 
-    //todo get user from token
+    /**
+     * Detached {@link User} of the current principal; resolving it costs no query once the
+     * subject is cached.
+     */
     public User getLoggedUser() {
-        Optional<User> optionalUser = userRepository.getByEmail("testowy@test.pl");
-        return optionalUser.orElseGet(this::createUser);
+        return getCurrentUser().toUser();
+    }
+
+    //todo get subject from token claims
+    private String currentSubject() {
+        String header = userProperties.getSubjectHeader();
+        if (header != null && RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            String subject = attributes.getRequest().getHeader(header);
+            if (subject != null && !subject.isBlank()) {
+                return subject;
+            }
+        }
+        return userProperties.getDevSubject();
+    }
+
+    private CurrentUser loadUser(String subject) {
+        User user = userRepository.getByEmail(subject)
+                .orElseGet(() -> createUser(subject));
+        return CurrentUser.of(subject, user);
     }
 
-    private User createUser(){
-        User user = new User();
-        user.setFirstName("testowy");
-        user.setLastName("testowy");
-        user.setEmail("test@example.pl");
-        user.setRole(Role.IDENTIFIED_USER);
-        return userRepository.save(user);
+    /**
+     * Commits on its own, whatever transaction the caller is in: the id is cached for the identity
+     * TTL, so the row must not depend on a caller that may roll back or, being read-only, never
+     * flush the insert at all.
+     */
+    private User createUser(String subject) {
+        return newTransaction.execute(status -> {
+            User user = new User();
+            user.setFirstName("testowy");
+            user.setLastName("testowy");
+            user.setEmail(subject);
+            user.setRole(Role.IDENTIFIED_USER);
+            return userRepository.saveAndFlush(user);
+        });
     }
 }
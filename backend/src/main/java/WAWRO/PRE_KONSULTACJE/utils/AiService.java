@@ -1,36 +1,248 @@
 package WAWRO.PRE_KONSULTACJE.utils;
 
-import org.springframework.beans.factory.annotation.Value;
+import WAWRO.PRE_KONSULTACJE.config.AiServiceProperties;
+import WAWRO.PRE_KONSULTACJE.model.dto.ModerationRequestDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.ModerationResponseDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.SummaryDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.SummaryRequestDTO;
+import WAWRO.PRE_KONSULTACJE.model.enums.SummaryType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientRequest;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+@Slf4j
 @Component
 public class AiService {
 
+    public static final String ERROR_VERDICT = "ERROR: Validation failed.";
+
     private final WebClient webClient;
+    private final ModerationVerdictCache verdictCache;
+    private final AiServiceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final CallGuard moderationGuard;
+    private final CallGuard summaryGuard;
 
-    public AiService(@Value("${ai-service.url}") String baseUrl) {
+    public AiService(AiServiceProperties properties,
+                     ModerationVerdictCache verdictCache,
+                     MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.verdictCache = verdictCache;
+        this.meterRegistry = meterRegistry;
         this.webClient = WebClient.builder()
-                .baseUrl(baseUrl)
+                .baseUrl(properties.getUrl())
+                .clientConnector(new ReactorClientHttpConnector(createHttpClient(properties)))
                 .build();
+        this.moderationGuard = createGuard("moderate",
+                properties.getMaxConcurrentCalls(), properties.getCircuitBreaker());
+        this.summaryGuard = createGuard("summarize",
+                properties.getSummary().getMaxConcurrentCalls(), properties.getSummary().getCircuitBreaker());
     }
+
     public String validateComment(String comment) {
+        return requestVerdict(comment).block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #validateComment(String)}: no thread waits for the verdict,
+     * the future completes on the HTTP client's event loop.
+     */
+    public CompletableFuture<String> validateCommentAsync(String comment) {
+        return requestVerdict(comment).toFuture();
+    }
+
+    /**
+     * Sends a batch of comments to the moderation endpoint with at most {@code concurrency}
+     * requests in flight and waits once for the whole batch. Verdicts are returned in input order.
+     */
+    public List<String> validateComments(List<String> comments, int concurrency) {
+        return requestVerdicts(comments, concurrency).block();
+    }
 
-        try {
-            return webClient.post()
-                    .uri("/moderate")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(BodyInserters.fromValue(comment))
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
+    public CompletableFuture<List<String>> validateCommentsAsync(List<String> comments, int concurrency) {
+        return requestVerdicts(comments, concurrency).toFuture();
+    }
+
+    /**
+     * Unlike moderation, a failed summary has no safe fallback: errors, including
+     * {@link AiServiceUnavailableException}, are passed on to the caller.
+     */
+    public Mono<String> summarize(SummaryType type, String text) {
+        Duration timeout = properties.getSummaryTimeout();
+        return guarded(summaryGuard, webClient.post()
+                .uri("/summarize")
+                .contentType(MediaType.APPLICATION_JSON)
+                .httpRequest(request -> request.<HttpClientRequest>getNativeRequest().responseTimeout(timeout))
+                .body(BodyInserters.fromValue(new SummaryRequestDTO(type, text)))
+                .retrieve()
+                .bodyToMono(SummaryDTO.class)
+                .map(SummaryDTO::summary)
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Empty response from AI-service"))),
+                timeout, summary -> "SUCCESS")
+                .onErrorMap(TimeoutException.class, e -> new AiServiceUnavailableException("AI-service summary timed out"));
+    }
+
+    private Mono<List<String>> requestVerdicts(List<String> comments, int concurrency) {
+        return Flux.fromIterable(comments)
+                .flatMapSequential(this::requestVerdict, concurrency)
+                .collectList();
+    }
+
+    /**
+     * Errors and rejections resolve to {@link #ERROR_VERDICT}, which moderation treats as
+     * "needs review", so an unavailable AI service degrades to manual moderation.
+     */
+    private Mono<String> requestVerdict(String comment) {
+        return Mono.fromFuture(() -> verdictCache.get(comment, () -> callModerationEndpoint(comment).toFuture()))
+                .onErrorResume(e -> {
+                    if (e instanceof AiServiceUnavailableException) {
+                        log.debug("AI-service call rejected: {}", e.getMessage());
+                    } else {
+                        log.error("Error communicating with AI-service: {}", e.getMessage());
+                    }
+                    return Mono.just(ERROR_VERDICT);
+                });
+    }
 
-        } catch (Exception e) {
-            System.err.println("Error communicating with AI-service: " + e.getMessage());
+    private Mono<String> callModerationEndpoint(String comment) {
+        return guarded(moderationGuard, webClient.post()
+                .uri("/moderate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(new ModerationRequestDTO(comment)))
+                .retrieve()
+                .bodyToMono(ModerationResponseDTO.class)
+                .map(ModerationResponseDTO::decision)
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Empty response from AI-service"))),
+                properties.getCallTimeout(), AiService::verdictOutcome);
+    }
 
-            return "ERROR: Validation failed.";
-        }
+    /**
+     * Runs a call through the endpoint's bulkhead and circuit breaker and records its latency in
+     * {@code ai.service.calls}, tagged with the endpoint, the outcome (the verdict for moderation,
+     * ERROR on failure, CANCELLED when the caller gave up) and the exception. Rejected calls never
+     * reach the service and are only counted in {@code ai.calls.rejected}.
+     */
+    private <T> Mono<T> guarded(CallGuard guard, Mono<T> call, Duration timeout, Function<T, String> outcome) {
+        String endpoint = guard.endpoint();
+        Semaphore bulkhead = guard.bulkhead();
+        CircuitBreaker circuitBreaker = guard.circuitBreaker();
+        return Mono.defer(() -> {
+            if (!bulkhead.tryAcquire()) {
+                return reject(endpoint, "bulkhead");
+            }
+            if (!circuitBreaker.tryAcquirePermission()) {
+                bulkhead.release();
+                return reject(endpoint, "circuit_open");
+            }
+            Timer.Sample sample = Timer.start(meterRegistry);
+            AtomicBoolean settled = new AtomicBoolean();
+            return call
+                    .timeout(timeout)
+                    .doOnSuccess(result -> {
+                        settled.set(true);
+                        circuitBreaker.onSuccess();
+                        sample.stop(callTimer(endpoint, outcome.apply(result), "none"));
+                    })
+                    .doOnError(e -> {
+                        settled.set(true);
+                        circuitBreaker.onFailure();
+                        sample.stop(callTimer(endpoint, "ERROR", e.getClass().getSimpleName()));
+                    })
+                    .doFinally(signal -> {
+                        // A client disconnect or a failed sibling in a batch cancels the call midway.
+                        if (signal == SignalType.CANCEL && settled.compareAndSet(false, true)) {
+                            circuitBreaker.onCancelled();
+                            sample.stop(callTimer(endpoint, "CANCELLED", "none"));
+                        }
+                        bulkhead.release();
+                    });
+        });
+    }
+
+    private Timer callTimer(String endpoint, String outcome, String exception) {
+        return Timer.builder("ai.service.calls")
+                .description("Round-trip time of calls that reached the AI service")
+                .tags("endpoint", endpoint, "outcome", outcome, "exception", exception)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(properties.getSummaryTimeout())
+                .register(meterRegistry);
+    }
+
+    // Keeps the tag bounded whatever the service answers.
+    private static String verdictOutcome(String verdict) {
+        return switch (verdict) {
+            case "OK", "BLOCK", "REVIEW" -> verdict;
+            default -> "OTHER";
+        };
+    }
+
+    private <T> Mono<T> reject(String endpoint, String reason) {
+        meterRegistry.counter("ai.calls.rejected", "endpoint", endpoint, "reason", reason).increment();
+        return Mono.error(new AiServiceUnavailableException("AI-service " + endpoint + " call rejected: " + reason));
+    }
+
+    private CallGuard createGuard(String endpoint, int maxConcurrentCalls, AiServiceProperties.CircuitBreaker config) {
+        Semaphore bulkhead = new Semaphore(maxConcurrentCalls);
+        CircuitBreaker circuitBreaker = createCircuitBreaker(endpoint, config);
+        Gauge.builder("ai.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        Gauge.builder("ai.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        return new CallGuard(endpoint, bulkhead, circuitBreaker);
+    }
+
+    private CircuitBreaker createCircuitBreaker(String endpoint, AiServiceProperties.CircuitBreaker config) {
+        return new CircuitBreaker(
+                config.getFailureRateThreshold(),
+                config.getWindowSize(),
+                config.getMinimumCalls(),
+                config.getOpenDuration(),
+                config.getHalfOpenPermits(),
+                Clock.systemUTC(),
+                (from, to) -> {
+                    log.warn("AI-service {} circuit breaker {} -> {}", endpoint, from, to);
+                    meterRegistry.counter("ai.circuit.transitions",
+                            "endpoint", endpoint, "from", from.name(), "to", to.name()).increment();
+                });
+    }
+
+    private record CallGuard(String endpoint, Semaphore bulkhead, CircuitBreaker circuitBreaker) {
+    }
+
+    private static HttpClient createHttpClient(AiServiceProperties properties) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("ai-service")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireTimeout(properties.getPendingAcquireTimeout())
+                // Publishes reactor.netty.connection.provider.* gauges, e.g. pending acquisitions.
+                .metrics(true)
+                .build();
+        return HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .responseTimeout(properties.getResponseTimeout());
     }
 }
@@ -0,0 +1,30 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Who sent a paper letter. Two letters belong to the same analog user when their normalized
+ * first name, last name and (optional) address agree; {@link #key()} is that identity as a
+ * fixed-length hash, stored in {@code users.identity_key}.
+ */
+public record AnalogIdentity(String firstName, String lastName, String address) {
+
+    private static final Pattern ADDRESS_PUNCTUATION = Pattern.compile("[.,;:/\\\\-]+");
+
+    public String key() {
+        String identity = CommentTextNormalizer.normalize(firstName)
+                + '\n' + CommentTextNormalizer.normalize(lastName)
+                + '\n' + CommentTextNormalizer.normalize(ADDRESS_PUNCTUATION.matcher(
+                        address == null ? "" : address).replaceAll(" "));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(identity.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import WAWRO.PRE_KONSULTACJE.event.ApprovalToggledEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory copy of comment_approvals: one compressed bitmap of approving user ids per comment.
+ * Built from the table once the context is up (before the web server accepts requests) and
+ * updated after every committed toggle by {@code ConsultationVersionTracker}, so a page of
+ * comments can be decorated with approval counts and "approved by me" flags without a query.
+ * <p>
+ * Bitmaps are not thread-safe; every access goes through the bitmap's monitor.
+ * User ids are assumed to fit in an int, which holds for the identity sequence of {@code users}.
+ */
+@Slf4j
+@Component
+public class ApprovalIndex implements SmartInitializingSingleton {
+
+    private static final int REBUILD_FETCH_SIZE = 10_000;
+
+    private final Map<Long, RoaringBitmap> approvalsByComment = new ConcurrentHashMap<>();
+    private final LongAdder totalApprovals = new LongAdder();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ApprovalIndex(DataSource dataSource,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(REBUILD_FETCH_SIZE);
+        // PostgreSQL only honours the fetch size (cursor-based streaming) inside a transaction.
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        Gauge.builder("approvals.index.approvals", totalApprovals, LongAdder::sum)
+                .register(meterRegistry);
+        Gauge.builder("approvals.index.comments", approvalsByComment, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("approvals.index.memory", this, ApprovalIndex::sizeInBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("approvals.index.memory.per.million", this, ApprovalIndex::bytesPerMillionApprovals)
+                .description("Index memory normalized to one million approvals")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        long start = System.nanoTime();
+        approvalsByComment.clear();
+        totalApprovals.reset();
+
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(
+                "select comment_id, user_id from comment_approvals order by comment_id",
+                (RowCallbackHandler) rs -> add(rs.getLong(1), rs.getLong(2))));
+        approvalsByComment.values().forEach(bitmap -> {
+            synchronized (bitmap) {
+                bitmap.runOptimize();
+            }
+        });
+
+        log.info("Approval index rebuilt: {} approvals on {} comments, {} bytes ({} bytes per million) in {} ms",
+                totalApprovals.sum(), approvalsByComment.size(), sizeInBytes(), (long) bytesPerMillionApprovals(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Called after commit by ConsultationVersionTracker, before it bumps the comments ETag.
+    public void onApprovalToggled(ApprovalToggledEvent event) {
+        if (event.approved()) {
+            add(event.commentId(), event.userId());
+        } else {
+            remove(event.commentId(), event.userId());
+        }
+    }
+
+    public long count(Long commentId) {
+        RoaringBitmap bitmap = approvalsByComment.get(commentId);
+        if (bitmap == null) {
+            return 0;
+        }
+        synchronized (bitmap) {
+            return bitmap.getCardinality();
+        }
+    }
+
+    public boolean isApprovedBy(Long commentId, Long userId) {
+        RoaringBitmap bitmap = approvalsByComment.get(commentId);
+        if (bitmap == null || userId == null) {
+            return false;
+        }
+        synchronized (bitmap) {
+            return bitmap.contains(Math.toIntExact(userId));
+        }
+    }
+
+    void add(long commentId, long userId) {
+        approvalsByComment.compute(commentId, (id, bitmap) -> {
+            RoaringBitmap target = bitmap != null ? bitmap : new RoaringBitmap();
+            synchronized (target) {
+                if (target.checkedAdd(Math.toIntExact(userId))) {
+                    totalApprovals.increment();
+                }
+            }
+            return target;
+        });
+    }
+
+    void remove(long commentId, long userId) {
+        approvalsByComment.computeIfPresent(commentId, (id, bitmap) -> {
+            synchronized (bitmap) {
+                if (bitmap.checkedRemove(Math.toIntExact(userId))) {
+                    totalApprovals.decrement();
+                }
+                return bitmap.isEmpty() ? null : bitmap;
+            }
+        });
+    }
+
+    long sizeInBytes() {
+        long bytes = 0;
+        for (RoaringBitmap bitmap : approvalsByComment.values()) {
+            synchronized (bitmap) {
+                bytes += bitmap.getLongSizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    double bytesPerMillionApprovals() {
+        long approvals = totalApprovals.sum();
+        return approvals == 0 ? 0 : sizeInBytes() * 1_000_000d / approvals;
+    }
+}
@@ -0,0 +1,142 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.BiConsumer;
+
+/**
+ * Count-based circuit breaker. Opens when the failure rate over the last {@code windowSize}
+ * calls reaches the threshold, rejects calls while open and lets a few trial calls through
+ * after {@code openDuration} before closing again.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final Duration openDuration;
+    private final int halfOpenPermits;
+    private final Clock clock;
+    private final BiConsumer<State, State> transitionListener;
+
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private Instant openedAt = Instant.MIN;
+    private int halfOpenInFlight;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(int failureRateThreshold,
+                          int windowSize,
+                          int minimumCalls,
+                          Duration openDuration,
+                          int halfOpenPermits,
+                          Clock clock,
+                          BiConsumer<State, State> transitionListener) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.openDuration = openDuration;
+        this.halfOpenPermits = halfOpenPermits;
+        this.clock = clock;
+        this.transitionListener = transitionListener;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.instant().isBefore(openedAt.plus(openDuration))) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight >= halfOpenPermits) {
+                return false;
+            }
+            halfOpenInFlight++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        switch (state) {
+            case CLOSED -> record(false);
+            case HALF_OPEN -> {
+                halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+                if (++halfOpenSuccesses >= halfOpenPermits) {
+                    transitionTo(State.CLOSED);
+                }
+            }
+            case OPEN -> {
+            }
+        }
+    }
+
+    public synchronized void onFailure() {
+        switch (state) {
+            case CLOSED -> {
+                record(true);
+                if (windowCount >= minimumCalls && windowFailures * 100 >= failureRateThreshold * windowCount) {
+                    transitionTo(State.OPEN);
+                }
+            }
+            case HALF_OPEN -> transitionTo(State.OPEN);
+            case OPEN -> {
+            }
+        }
+    }
+
+    /**
+     * A call abandoned by its caller says nothing about the service: it is not recorded, but a
+     * trial permit it held is returned so that the breaker cannot stay half-open forever.
+     */
+    public synchronized void onCancelled() {
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+        }
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void transitionTo(State next) {
+        State previous = state;
+        state = next;
+        halfOpenInFlight = 0;
+        halfOpenSuccesses = 0;
+        if (next == State.OPEN) {
+            openedAt = clock.instant();
+        }
+        if (next == State.CLOSED) {
+            windowIndex = 0;
+            windowCount = 0;
+            windowFailures = 0;
+        }
+        transitionListener.accept(previous, next);
+    }
+}
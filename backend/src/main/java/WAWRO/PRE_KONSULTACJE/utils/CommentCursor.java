@@ -0,0 +1,41 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import WAWRO.PRE_KONSULTACJE.model.entity.Comment;
+import jakarta.validation.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position in the (dateCreated, id) ordering of a consultation's comments.
+ */
+public record CommentCursor(
+        LocalDateTime dateCreated,
+        Long id
+) {
+
+    private static final String SEPARATOR = "|";
+
+    public static CommentCursor of(Comment comment) {
+        return new CommentCursor(comment.getDateCreated(), comment.getId());
+    }
+
+    public static CommentCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(SEPARATOR);
+            return new CommentCursor(
+                    LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ValidationException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public String encode() {
+        String raw = dateCreated + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
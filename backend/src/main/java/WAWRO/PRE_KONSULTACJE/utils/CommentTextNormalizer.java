@@ -0,0 +1,31 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public final class CommentTextNormalizer {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private CommentTextNormalizer() {
+    }
+
+    /**
+     * Folds compatibility characters (NFKD), diacritics, case and whitespace runs, so that
+     * copies of the same text pasted from different sources, or typed without Polish
+     * characters, compare equal.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        // "ł" has no decomposition, so it is folded by hand.
+        String folded = COMBINING_MARKS.matcher(decomposed).replaceAll("")
+                .replace('ł', 'l').replace('Ł', 'L')
+                .toLowerCase(Locale.ROOT);
+        return WHITESPACE.matcher(folded).replaceAll(" ").strip();
+    }
+}
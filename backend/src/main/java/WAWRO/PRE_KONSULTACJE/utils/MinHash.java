@@ -0,0 +1,89 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * MinHash signatures over word bigrams of the normalized text. The share of equal positions in
+ * two signatures estimates the Jaccard similarity of their bigram sets, which stays high when a
+ * campaign letter is copied with a few words changed.
+ */
+public final class MinHash {
+
+    public static final int SIGNATURE_SIZE = 32;
+    public static final double SIMILARITY_THRESHOLD = 0.5;
+
+    private static final int SHINGLE_SIZE = 2;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private MinHash() {
+    }
+
+    public static int[] signature(String text) {
+        List<String> words = words(text);
+        int[] signature = new int[SIGNATURE_SIZE];
+        Arrays.fill(signature, -1);
+        int shingles = Math.max(1, words.size() - SHINGLE_SIZE + 1);
+        for (int i = 0; i < shingles; i++) {
+            long shingle = hash(words.subList(i, Math.min(words.size(), i + SHINGLE_SIZE)));
+            // One seeded re-mix per position stands in for SIGNATURE_SIZE independent hash functions.
+            for (int position = 0; position < SIGNATURE_SIZE; position++) {
+                int value = (int) mix(shingle + position * GOLDEN_GAMMA);
+                if (Integer.compareUnsigned(value, signature[position]) < 0) {
+                    signature[position] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    public static double similarity(int[] first, int[] second) {
+        int equal = 0;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            if (first[i] == second[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / SIGNATURE_SIZE;
+    }
+
+    public static boolean isNearDuplicate(int[] first, int[] second) {
+        return similarity(first, second) >= SIMILARITY_THRESHOLD;
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : NON_WORD.split(CommentTextNormalizer.normalize(text))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static long hash(List<String> shingle) {
+        long hash = 0xcbf29ce484222325L;
+        for (String word : shingle) {
+            for (int i = 0; i < word.length(); i++) {
+                hash ^= word.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= ' ';
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // MurmurHash3 finalizer.
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,61 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import WAWRO.PRE_KONSULTACJE.config.AiServiceProperties;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-limited cache of AI verdicts keyed by a SHA-256 of the normalized comment text.
+ * Identical comments that arrive while the first one is still being moderated share the
+ * in-flight request. Failed requests are dropped from the cache automatically, and so are answers
+ * that are not one of the known verdicts: callers waiting for them still get them, later ones ask again.
+ */
+@Component
+public class ModerationVerdictCache {
+
+    private static final Set<String> CACHEABLE_VERDICTS = Set.of("OK", "BLOCK", "REVIEW");
+
+    private final AsyncCache<String, String> cache;
+
+    public ModerationVerdictCache(AiServiceProperties properties, MeterRegistry meterRegistry) {
+        AiServiceProperties.VerdictCache config = properties.getVerdictCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "ai.verdicts");
+    }
+
+    public CompletableFuture<String> get(String comment, Supplier<CompletableFuture<String>> loader) {
+        String key = keyOf(comment);
+        CompletableFuture<String> verdict = cache.get(key, (k, executor) -> loader.get());
+        verdict.thenAccept(value -> {
+            if (!CACHEABLE_VERDICTS.contains(value)) {
+                cache.asMap().remove(key, verdict);
+            }
+        });
+        return verdict;
+    }
+
+    static String keyOf(String comment) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(CommentTextNormalizer.normalize(comment).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
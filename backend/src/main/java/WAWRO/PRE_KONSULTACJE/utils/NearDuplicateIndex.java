@@ -0,0 +1,148 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Locality-sensitive index of comment {@link MinHash} signatures, per consultation.
+ * <p>
+ * Signatures are cut into bands of two positions and every band value is a bucket. Texts above
+ * the similarity threshold almost always share at least one bucket, so a lookup only verifies
+ * the few signatures found there. Identical signatures are stored once: a campaign of exact
+ * copies costs one entry, however many times it was submitted.
+ * <p>
+ * Entries map to the cluster's representative, the first comment seen with that text. The index
+ * is rebuilt from {@code comments} at startup and only learns about committed comments.
+ */
+@Slf4j
+@Component
+public class NearDuplicateIndex implements SmartInitializingSingleton {
+
+    private static final int BAND_SIZE = 2;
+    private static final int BANDS = MinHash.SIGNATURE_SIZE / BAND_SIZE;
+    private static final int REBUILD_FETCH_SIZE = 10_000;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Queue<Entry>> buckets = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public NearDuplicateIndex(DataSource dataSource,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(REBUILD_FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        Gauge.builder("comments.clusters.index.signatures", entries, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("comments.clusters.index.buckets", buckets, Map::size)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        long start = System.nanoTime();
+        entries.clear();
+        buckets.clear();
+
+        // Ordered by id, so the earliest comment of a cluster is the one every later copy maps to.
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query("""
+                        select pre_consultation_id, content, coalesce(cluster_id, id)
+                        from comments
+                        order by id
+                        """,
+                (RowCallbackHandler) rs -> add(rs.getLong(1), MinHash.signature(rs.getString(2)), rs.getLong(3))));
+
+        log.info("Near-duplicate index rebuilt: {} signatures in {} buckets in {} ms",
+                entries.size(), buckets.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * @return id of the representative of the cluster the signature belongs to, or {@code null}
+     * when nothing similar has been committed to the consultation yet
+     */
+    public Long findCluster(long consultationId, int[] signature) {
+        Entry exact = entries.get(signatureKey(consultationId, signature));
+        if (exact != null && Arrays.equals(exact.signature(), signature)) {
+            return exact.clusterId();
+        }
+        for (int band = 0; band < BANDS; band++) {
+            Queue<Entry> bucket = buckets.get(bucketKey(consultationId, band, signature));
+            if (bucket == null) {
+                continue;
+            }
+            for (Entry entry : bucket) {
+                if (MinHash.isNearDuplicate(entry.signature(), signature)) {
+                    return entry.clusterId();
+                }
+            }
+        }
+        return null;
+    }
+
+    // A comment from a transaction that later rolls back must never become a representative.
+    public void addAfterCommit(long consultationId, int[] signature, long clusterId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(consultationId, signature, clusterId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(consultationId, signature, clusterId);
+            }
+        });
+    }
+
+    void add(long consultationId, int[] signature, long clusterId) {
+        Entry entry = new Entry(signature, clusterId);
+        if (entries.putIfAbsent(signatureKey(consultationId, signature), entry) != null) {
+            return;
+        }
+        for (int band = 0; band < BANDS; band++) {
+            buckets.computeIfAbsent(bucketKey(consultationId, band, signature), key -> new ConcurrentLinkedQueue<>())
+                    .add(entry);
+        }
+    }
+
+    private static long signatureKey(long consultationId, int[] signature) {
+        long key = MinHash.mix(consultationId);
+        for (int value : signature) {
+            key = MinHash.mix(key ^ value);
+        }
+        return key;
+    }
+
+    private static long bucketKey(long consultationId, int band, int[] signature) {
+        long key = MinHash.mix(consultationId * BANDS + band);
+        for (int i = band * BAND_SIZE; i < (band + 1) * BAND_SIZE; i++) {
+            key = MinHash.mix(key ^ signature[i]);
+        }
+        return key;
+    }
+
+    private record Entry(int[] signature, long clusterId) {
+    }
+}
@@ -0,0 +1,238 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Java counterpart of the WULGARYZMY check in the Python moderator, compiled into an
+ * Aho-Corasick automaton so that a comment is scanned once regardless of the word count.
+ *
+ * <p>Input is folded on the fly: Polish and other Latin diacritics, Cyrillic look-alikes and
+ * common leetspeak digits map to a-z, punctuation inside a word is skipped ({@code k.u.r.w.a})
+ * and repeated letters are collapsed ({@code kuuurwa}). Whitespace and other characters
+ * end the current word, so a match never spans two words.
+ *
+ * <p>Entries of the allow-list are compiled into the same automaton as clean stems ending where a
+ * word-list entry ends ({@code podsłuchujemy} contains {@code chuj}). The automaton reports the
+ * longest entry ending at a position, so a clean stem hides the shorter entry it contains.
+ */
+@Component
+public class ProfanityFilter {
+
+    private static final String WORD_LIST = "moderation/profanity.txt";
+    private static final String ALLOW_LIST = "moderation/profanity-allowed.txt";
+    private static final int ALPHABET = 26;
+    private static final byte SKIP = -1;
+    private static final byte BREAK = -2;
+    private static final byte[] FOLD = buildFoldTable();
+
+    private final int[][] transitions;
+    private final int[] output;
+    // Word-list entry of every terminal state; null for allow-list entries.
+    private final String[] words;
+
+    public ProfanityFilter() {
+        this(loadWordList(WORD_LIST), loadWordList(ALLOW_LIST));
+    }
+
+    public ProfanityFilter(Collection<String> words) {
+        this(words, List.of());
+    }
+
+    public ProfanityFilter(Collection<String> words, Collection<String> allowed) {
+        List<int[]> trie = new ArrayList<>();
+        List<Integer> terminal = new ArrayList<>();
+        List<String> folded = new ArrayList<>();
+        trie.add(newNode());
+        terminal.add(-1);
+
+        for (String word : words) {
+            insert(trie, terminal, folded, word, word);
+        }
+        for (String stem : allowed) {
+            insert(trie, terminal, folded, stem, null);
+        }
+
+        this.transitions = trie.toArray(new int[0][]);
+        this.output = terminal.stream().mapToInt(Integer::intValue).toArray();
+        this.words = folded.toArray(new String[0]);
+        buildFailureLinks();
+    }
+
+    public boolean containsProfanity(String text) {
+        return findFirst(text) != null;
+    }
+
+    /**
+     * Returns the word-list entry matched first in {@code text}, or {@code null} when the text is clean.
+     */
+    public String findFirst(String text) {
+        if (text == null) {
+            return null;
+        }
+        int state = 0;
+        byte previous = BREAK;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            byte letter = FOLD[text.charAt(i)];
+            if (letter == SKIP || letter == previous) {
+                continue;
+            }
+            previous = letter;
+            if (letter == BREAK) {
+                state = 0;
+                continue;
+            }
+            state = transitions[state][letter];
+            if (output[state] >= 0 && words[output[state]] != null) {
+                return words[output[state]];
+            }
+        }
+        return null;
+    }
+
+    private static void insert(List<int[]> trie, List<Integer> terminal, List<String> folded,
+                               String entry, String word) {
+        byte[] letters = foldWord(entry);
+        if (letters.length == 0) {
+            return;
+        }
+        int state = 0;
+        for (byte letter : letters) {
+            if (trie.get(state)[letter] == 0) {
+                trie.get(state)[letter] = trie.size();
+                trie.add(newNode());
+                terminal.add(-1);
+            }
+            state = trie.get(state)[letter];
+        }
+        if (terminal.get(state) < 0) {
+            terminal.set(state, folded.size());
+            folded.add(word);
+        }
+    }
+
+    private void buildFailureLinks() {
+        int[] failure = new int[transitions.length];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int letter = 0; letter < ALPHABET; letter++) {
+            int child = transitions[0][letter];
+            if (child != 0) {
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            if (output[state] < 0) {
+                output[state] = output[failure[state]];
+            }
+            for (int letter = 0; letter < ALPHABET; letter++) {
+                int child = transitions[state][letter];
+                if (child != 0) {
+                    failure[child] = transitions[failure[state]][letter];
+                    queue.add(child);
+                } else {
+                    transitions[state][letter] = transitions[failure[state]][letter];
+                }
+            }
+        }
+    }
+
+    private static int[] newNode() {
+        return new int[ALPHABET];
+    }
+
+    private static byte[] foldWord(String word) {
+        byte[] letters = new byte[word.length()];
+        int length = 0;
+        byte previous = BREAK;
+        for (int i = 0; i < word.length(); i++) {
+            byte letter = FOLD[word.charAt(i)];
+            if (letter < 0 || letter == previous) {
+                continue;
+            }
+            letters[length++] = letter;
+            previous = letter;
+        }
+        return Arrays.copyOf(letters, length);
+    }
+
+    private static List<String> loadWordList(String location) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource(location).getInputStream(), StandardCharsets.UTF_8))) {
+            return reader.lines()
+                    .map(String::strip)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + location, e);
+        }
+    }
+
+    private static byte[] buildFoldTable() {
+        byte[] table = new byte[Character.MAX_VALUE + 1];
+        Arrays.fill(table, BREAK);
+
+        for (char c = 0; c < 0x250; c++) {
+            if (!Character.isLetter(c)) {
+                continue;
+            }
+            char base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+            base = Character.toLowerCase(base);
+            if (base >= 'a' && base <= 'z') {
+                table[c] = (byte) (base - 'a');
+            }
+        }
+        map(table, "łŁ", 'l');
+
+        map(table, "аА", 'a');
+        map(table, "вВ", 'b');
+        map(table, "еЕёЁ", 'e');
+        map(table, "кК", 'k');
+        map(table, "мМ", 'm');
+        map(table, "нН", 'h');
+        map(table, "оО", 'o');
+        map(table, "рР", 'p');
+        map(table, "сС", 'c');
+        map(table, "тТ", 't');
+        map(table, "уУ", 'y');
+        map(table, "хХ", 'x');
+        map(table, "іІ", 'i');
+
+        map(table, "4@", 'a');
+        map(table, "8", 'b');
+        map(table, "3", 'e');
+        map(table, "9", 'g');
+        map(table, "1!", 'i');
+        map(table, "0", 'o');
+        map(table, "5$", 's');
+        map(table, "7", 't');
+
+        for (char c : ".,-_*'\"`+~|/\\:;^".toCharArray()) {
+            table[c] = SKIP;
+        }
+        // soft hyphen, zero-width space/joiners, word joiner and BOM
+        for (char c : "\u00AD\u200B\u200C\u200D\u2060\uFEFF".toCharArray()) {
+            table[c] = SKIP;
+        }
+        return table;
+    }
+
+    private static void map(byte[] table, String chars, char target) {
+        for (char c : chars.toCharArray()) {
+            table[c] = (byte) (target - 'a');
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Hands out ids to rows written with plain JDBC from the same sequences Hibernate uses, so such
+ * rows can be batch-inserted with their ids known up front instead of reading them back one
+ * RETURNING row at a time.
+ * <p>
+ * Follows Hibernate's pooled-lo optimizer: every {@code nextval} value {@code v} reserves the
+ * block {@code [v, v + ALLOCATION_SIZE)}, whoever fetched it. Hibernate and this allocator can
+ * therefore draw from one sequence concurrently without handing out the same id twice.
+ */
+@Component
+public class SequenceIdAllocator {
+
+    public static final int ALLOCATION_SIZE = 50;
+    public static final String USERS_SEQUENCE = "users_seq";
+    public static final String PRECONSULTATIONS_SEQUENCE = "preconsultations_seq";
+    public static final String COMMENTS_SEQUENCE = "comments_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SequenceIdAllocator(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public long[] allocate(String sequence, int count) {
+        if (count == 0) {
+            return new long[0];
+        }
+        int blocks = (count + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE;
+        List<Long> blockStarts = jdbcTemplate.queryForList(
+                "select nextval(cast(? as regclass)) from generate_series(1, ?)", Long.class, sequence, blocks);
+        return ids(blockStarts, count);
+    }
+
+    static long[] ids(List<Long> blockStarts, int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = blockStarts.get(i / ALLOCATION_SIZE) + i % ALLOCATION_SIZE;
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,9 @@
+-- Partial indexes over blocked comments only; visible comments, the vast majority, never enter them.
+CREATE INDEX IF NOT EXISTS idx_comments_blocked
+    ON comments (date_created DESC, id DESC)
+    WHERE blocked;
+
+-- Review queue for leased claims: oldest first, confirmed blocks (REJECTED) drop out of the index.
+CREATE INDEX IF NOT EXISTS idx_comments_review_queue
+    ON comments (date_created, id)
+    WHERE blocked AND moderation_status IN ('NEEDS_REVIEW', 'BLOCKED');
@@ -0,0 +1,25 @@
+-- Full-text search over comment content.
+-- PostgreSQL ships no Polish stemmer, so comments are indexed with the 'simple' parser and
+-- unaccent: "Ustawa o ochronie zwierząt" matches a query for "zwierzat" as well as "zwierząt".
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- Created only when missing: this script runs on every start, and dropping the configuration
+-- would take search_vector and its index with it, i.e. rewrite the whole comments table.
+-- The body is single-quoted because Spring's script splitter does not understand $$ quoting.
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_ts_config
+                   WHERE cfgname = ''polish_unaccent'' AND cfgnamespace = current_schema()::regnamespace) THEN
+        CREATE TEXT SEARCH CONFIGURATION polish_unaccent (COPY = simple);
+        ALTER TEXT SEARCH CONFIGURATION polish_unaccent
+            ALTER MAPPING FOR hword, hword_part, word WITH unaccent, simple;
+    END IF;
+END
+';
+
+-- Not mapped on Comment: the column is computed by the database and only read by native queries.
+ALTER TABLE comments
+    ADD COLUMN IF NOT EXISTS search_vector tsvector
+        GENERATED ALWAYS AS (to_tsvector('polish_unaccent', coalesce(content, ''))) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_comments_search_vector ON comments USING gin (search_vector);
@@ -0,0 +1,68 @@
+package WAWRO.PRE_KONSULTACJE.benchmark;
+
+import WAWRO.PRE_KONSULTACJE.event.ApprovalToggledEvent;
+import WAWRO.PRE_KONSULTACJE.utils.ApprovalIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory part of the approval hot path: the toggle applied to the index after commit and the
+ * count / "approved by me" lookups that decorate every page of comments, on a comment with a
+ * large number of approvals. The database round-trips of {@code CommentService.toggleApprove}
+ * are deliberately left out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommentApprovalBenchmark {
+
+    private static final long CONSULTATION_ID = 1L;
+    private static final long HOT_COMMENT_ID = 1L;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "100000", "1000000"})
+    private int approvals;
+
+    private ApprovalIndex approvalIndex;
+    private long togglingUserId;
+
+    @Setup
+    public void setUp() {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource();
+        approvalIndex = new ApprovalIndex(dataSource, new DataSourceTransactionManager(dataSource),
+                new SimpleMeterRegistry());
+        // Every third user approved the hot comment; the rest of the page has a handful of approvals each.
+        for (long user = 1; user <= approvals; user++) {
+            approvalIndex.onApprovalToggled(new ApprovalToggledEvent(CONSULTATION_ID, HOT_COMMENT_ID, user * 3, true));
+        }
+        for (long comment = HOT_COMMENT_ID + 1; comment <= PAGE_SIZE; comment++) {
+            for (long user = 1; user <= comment; user++) {
+                approvalIndex.onApprovalToggled(new ApprovalToggledEvent(CONSULTATION_ID, comment, user, true));
+            }
+        }
+        togglingUserId = approvals * 3L + 1;
+    }
+
+    @Benchmark
+    public long toggleOnAndOff() {
+        approvalIndex.onApprovalToggled(new ApprovalToggledEvent(CONSULTATION_ID, HOT_COMMENT_ID, togglingUserId, true));
+        approvalIndex.onApprovalToggled(new ApprovalToggledEvent(CONSULTATION_ID, HOT_COMMENT_ID, togglingUserId, false));
+        return approvalIndex.count(HOT_COMMENT_ID);
+    }
+
+    @Benchmark
+    public void decoratePage(Blackhole blackhole) {
+        for (long comment = HOT_COMMENT_ID; comment <= PAGE_SIZE; comment++) {
+            blackhole.consume(approvalIndex.count(comment));
+            blackhole.consume(approvalIndex.isApprovedBy(comment, togglingUserId - 1));
+        }
+    }
+}
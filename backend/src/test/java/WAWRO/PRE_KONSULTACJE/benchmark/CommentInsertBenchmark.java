@@ -0,0 +1,243 @@
+package WAWRO.PRE_KONSULTACJE.benchmark;
+
+import WAWRO.PRE_KONSULTACJE.utils.SequenceIdAllocator;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.Driver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bulk insert of comment rows before and after the switch from identity columns to pooled
+ * sequences. Identity ids are measured row by row and, as the strongest identity baseline, as
+ * JDBC batches that read the generated keys back; preallocated sequence ids are written in
+ * batches with {@code reWriteBatchedInserts}. The {@code entity*} cases do the same through
+ * Hibernate with the application's batching settings, where identity ids rule out JDBC batching
+ * altogether. Needs the load-test database (docker-compose.loadtest.yml) and works on scratch
+ * tables of its own, e.g. {@code mvn -Pbenchmark verify -DskipTests
+ * -Dbenchmark.include=CommentInsert}. The score is time per row; rows/s is its inverse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CommentInsertBenchmark {
+
+    private static final String URL = "jdbc:postgresql://localhost:5433/preconsultations_loadtest";
+    private static final int ROWS = 100_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    private static final String INSERT_IDENTITY = """
+            insert into bench_comments_identity (content, date_created, blocked, moderation_status, author_id, pre_consultation_id)
+            values (:content, :dateCreated, false, 'APPROVED', 1, 1)
+            """;
+    private static final String INSERT_SEQUENCE = """
+            insert into bench_comments_sequence (id, content, date_created, blocked, moderation_status, author_id, pre_consultation_id)
+            values (:id, :content, :dateCreated, false, 'APPROVED', 1, 1)
+            """;
+    private static final String[] ID_COLUMN = {"id"};
+
+    private NamedParameterJdbcTemplate plainJdbc;
+    private NamedParameterJdbcTemplate rewritingJdbc;
+    private SequenceIdAllocator idAllocator;
+    private SessionFactory sessionFactory;
+    private Timestamp timestamp;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimpleDriverDataSource plain = new SimpleDriverDataSource(new Driver(), URL, "root", "root");
+        SimpleDriverDataSource rewriting = new SimpleDriverDataSource(new Driver(),
+                URL + "?reWriteBatchedInserts=true", "root", "root");
+        plainJdbc = new NamedParameterJdbcTemplate(plain);
+        rewritingJdbc = new NamedParameterJdbcTemplate(rewriting);
+        idAllocator = new SequenceIdAllocator(rewriting);
+        timestamp = Timestamp.valueOf(LocalDateTime.now());
+
+        JdbcTemplate ddl = new JdbcTemplate(plain);
+        ddl.execute("drop table if exists bench_comments_identity, bench_comments_sequence");
+        ddl.execute("drop sequence if exists bench_comments_seq");
+        ddl.execute("""
+                create table bench_comments_identity (id bigint generated by default as identity primary key,
+                content text, date_created timestamp, blocked boolean, moderation_status varchar(20),
+                author_id bigint, pre_consultation_id bigint)
+                """);
+        ddl.execute("""
+                create table bench_comments_sequence (id bigint primary key,
+                content text, date_created timestamp, blocked boolean, moderation_status varchar(20),
+                author_id bigint, pre_consultation_id bigint)
+                """);
+        ddl.execute("create sequence bench_comments_seq start with 1 increment by " + SequenceIdAllocator.ALLOCATION_SIZE);
+
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(IdentityComment.class)
+                .addAnnotatedClass(SequenceComment.class)
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, 50)
+                .setProperty(AvailableSettings.ORDER_INSERTS, true)
+                .setProperty(AvailableSettings.PREFERRED_POOLED_OPTIMIZER, "pooled-lo");
+        configuration.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, rewriting);
+        sessionFactory = configuration.buildSessionFactory();
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        plainJdbc.getJdbcTemplate().execute("truncate bench_comments_identity, bench_comments_sequence");
+    }
+
+    @TearDown(Level.Trial)
+    public void dropTables() {
+        sessionFactory.close();
+        plainJdbc.getJdbcTemplate().execute("drop table if exists bench_comments_identity, bench_comments_sequence");
+        plainJdbc.getJdbcTemplate().execute("drop sequence if exists bench_comments_seq");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long identityRowByRow() {
+        long lastId = 0;
+        for (int i = 0; i < ROWS; i++) {
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            plainJdbc.update(INSERT_IDENTITY, row(i), keyHolder, ID_COLUMN);
+            lastId = keyHolder.getKey().longValue();
+        }
+        return lastId;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long identityBatchedWithGeneratedKeys() {
+        long lastId = 0;
+        for (int start = 0; start < ROWS; start += BATCH_SIZE) {
+            SqlParameterSource[] rows = new SqlParameterSource[BATCH_SIZE];
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                rows[i] = row(start + i);
+            }
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            rewritingJdbc.batchUpdate(INSERT_IDENTITY, rows, keyHolder, ID_COLUMN);
+            lastId = ((Number) keyHolder.getKeyList().getLast().get("id")).longValue();
+        }
+        return lastId;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long pooledSequenceBatched() {
+        long lastId = 0;
+        for (int start = 0; start < ROWS; start += BATCH_SIZE) {
+            long[] ids = idAllocator.allocate("bench_comments_seq", BATCH_SIZE);
+            SqlParameterSource[] rows = new SqlParameterSource[BATCH_SIZE];
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                rows[i] = row(start + i).addValue("id", ids[i]);
+            }
+            rewritingJdbc.batchUpdate(INSERT_SEQUENCE, rows);
+            lastId = ids[BATCH_SIZE - 1];
+        }
+        return lastId;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long entityIdentity() {
+        return persistAll(IdentityComment::new);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long entityPooledSequence() {
+        return persistAll(SequenceComment::new);
+    }
+
+    // Flushes and clears every batch, as a bulk import would, so the persistence context stays small.
+    private long persistAll(Supplier<BenchComment> factory) {
+        return sessionFactory.fromTransaction(session -> {
+            BenchComment comment = null;
+            for (int i = 0; i < ROWS; i++) {
+                comment = factory.get();
+                comment.content = "Komentarz numer " + i;
+                comment.dateCreated = timestamp.toLocalDateTime();
+                session.persist(comment);
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            return comment.getId();
+        });
+    }
+
+    private MapSqlParameterSource row(int i) {
+        return new MapSqlParameterSource()
+                .addValue("content", "Komentarz numer " + i)
+                .addValue("dateCreated", timestamp);
+    }
+
+    @MappedSuperclass
+    abstract static class BenchComment {
+
+        @Column(name = "content", columnDefinition = "text")
+        String content;
+        @Column(name = "date_created")
+        LocalDateTime dateCreated;
+        @Column(name = "blocked")
+        boolean blocked;
+        @Column(name = "moderation_status")
+        String moderationStatus = "APPROVED";
+        @Column(name = "author_id")
+        long authorId = 1;
+        @Column(name = "pre_consultation_id")
+        long preConsultationId = 1;
+
+        abstract Long getId();
+    }
+
+    @Entity
+    @Table(name = "bench_comments_identity")
+    static class IdentityComment extends BenchComment {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        Long id;
+
+        @Override
+        Long getId() {
+            return id;
+        }
+    }
+
+    @Entity
+    @Table(name = "bench_comments_sequence")
+    static class SequenceComment extends BenchComment {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bench_comments_seq")
+        @SequenceGenerator(name = "bench_comments_seq", sequenceName = "bench_comments_seq",
+                allocationSize = SequenceIdAllocator.ALLOCATION_SIZE)
+        Long id;
+
+        @Override
+        Long getId() {
+            return id;
+        }
+    }
+}
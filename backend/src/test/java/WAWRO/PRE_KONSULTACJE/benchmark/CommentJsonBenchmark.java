@@ -0,0 +1,45 @@
+package WAWRO.PRE_KONSULTACJE.benchmark;
+
+import WAWRO.PRE_KONSULTACJE.model.dto.AuthorDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentDTO;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommentJsonBenchmark {
+
+    // A default comment page, the largest page a client may ask for, and a full consultation.
+    @Param({"50", "200", "10000"})
+    private int commentCount;
+
+    private JsonMapper jsonMapper;
+    private List<CommentDTO> comments;
+
+    @Setup
+    public void setUp() {
+        jsonMapper = JsonMapper.builder().build();
+        comments = new ArrayList<>(commentCount);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < commentCount; i++) {
+            comments.add(new CommentDTO((long) i + 1,
+                    "Komentarz numer " + i + " do projektu ustawy o organizacji zawodów \"e-sportowych\".",
+                    now.minusSeconds(i), (long) (i % 50),
+                    new AuthorDTO("Jan" + i % 500, "Kowalski" + i % 500), i % 97 == 0, i % 3 == 0));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeComments() {
+        return jsonMapper.writeValueAsBytes(comments);
+    }
+}
@@ -0,0 +1,81 @@
+package WAWRO.PRE_KONSULTACJE.benchmark;
+
+import WAWRO.PRE_KONSULTACJE.mapper.CommentMapper;
+import WAWRO.PRE_KONSULTACJE.mapper.CommentMapperImpl;
+import WAWRO.PRE_KONSULTACJE.mapper.PreConsultationMapper;
+import WAWRO.PRE_KONSULTACJE.mapper.PreConsultationMapperImpl;
+import WAWRO.PRE_KONSULTACJE.mapper.UserMapperImpl;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.PreConsultationDTO;
+import WAWRO.PRE_KONSULTACJE.model.entity.Comment;
+import WAWRO.PRE_KONSULTACJE.model.entity.PreConsultation;
+import WAWRO.PRE_KONSULTACJE.model.entity.User;
+import WAWRO.PRE_KONSULTACJE.model.enums.Role;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommentMapperBenchmark {
+
+    private static final int AUTHORS = 500;
+
+    @Param({"1000", "10000", "100000"})
+    private int commentCount;
+
+    private AnnotationConfigApplicationContext context;
+    private CommentMapper commentMapper;
+    private PreConsultationMapper preConsultationMapper;
+    private PreConsultation consultation;
+    private Comment comment;
+
+    @Setup
+    public void setUp() {
+        // The generated mappers wire each other through field injection, so let Spring do it.
+        context = new AnnotationConfigApplicationContext(
+                UserMapperImpl.class, CommentMapperImpl.class, PreConsultationMapperImpl.class);
+        commentMapper = context.getBean(CommentMapper.class);
+        preConsultationMapper = context.getBean(PreConsultationMapper.class);
+
+        List<User> authors = new ArrayList<>(AUTHORS);
+        for (long i = 1; i <= AUTHORS; i++) {
+            authors.add(User.builder().id(i).email("user" + i + "@test.pl")
+                    .firstName("Jan" + i).lastName("Kowalski" + i).role(Role.IDENTIFIED_USER).build());
+        }
+        consultation = PreConsultation.builder().id(1L).subject("Projekt ustawy")
+                .description("Opis projektu").active(true).dateCreated(LocalDateTime.now())
+                .author(authors.getFirst()).comments(new ArrayList<>(commentCount)).build();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < commentCount; i++) {
+            consultation.getComments().add(Comment.builder().id((long) i + 1)
+                    .content("Komentarz numer " + i + " do projektu ustawy o organizacji zawodów.")
+                    .dateCreated(now.minusSeconds(i)).approvalCount(i % 50)
+                    .author(authors.get(i % AUTHORS)).preConsultation(consultation).build());
+        }
+        comment = consultation.getComments().getFirst();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CommentDTO commentToDto() {
+        return commentMapper.toDto(comment);
+    }
+
+    @Benchmark
+    public PreConsultationDTO consultationToDto() {
+        return preConsultationMapper.toDto(consultation);
+    }
+}
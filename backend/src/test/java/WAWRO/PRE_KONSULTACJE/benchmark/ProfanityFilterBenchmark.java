@@ -0,0 +1,53 @@
+package WAWRO.PRE_KONSULTACJE.benchmark;
+
+import WAWRO.PRE_KONSULTACJE.utils.ProfanityFilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProfanityFilterBenchmark {
+
+    private static final int INPUT_SIZE = 10 * 1024;
+
+    private ProfanityFilter profanityFilter;
+    private String cleanComment;
+    private String profaneTail;
+    private String obfuscatedTail;
+
+    @Setup
+    public void setUp() {
+        profanityFilter = new ProfanityFilter();
+        cleanComment = repeat("Projekt ustawy powinien doprecyzować obowiązki organizatorów zawodów e-sportowych. ");
+        profaneTail = cleanComment.substring(0, INPUT_SIZE - 6) + " dupa";
+        obfuscatedTail = cleanComment.substring(0, INPUT_SIZE - 10) + " k.u.r.w.a";
+    }
+
+    @Benchmark
+    public boolean clean10kb() {
+        return profanityFilter.containsProfanity(cleanComment);
+    }
+
+    @Benchmark
+    public boolean profanityAtEnd10kb() {
+        return profanityFilter.containsProfanity(profaneTail);
+    }
+
+    @Benchmark
+    public boolean obfuscatedAtEnd10kb() {
+        return profanityFilter.containsProfanity(obfuscatedTail);
+    }
+
+    private static String repeat(String sentence) {
+        StringBuilder builder = new StringBuilder(INPUT_SIZE + sentence.length());
+        while (builder.length() < INPUT_SIZE) {
+            builder.append(sentence);
+        }
+        return builder.substring(0, INPUT_SIZE);
+    }
+}
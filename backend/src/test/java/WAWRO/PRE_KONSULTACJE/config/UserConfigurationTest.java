@@ -0,0 +1,36 @@
+package WAWRO.PRE_KONSULTACJE.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserConfigurationTest {
+
+    @Test
+    void shouldRefuseSubjectHeaderOutsideLoadTestProfile() {
+        // GIVEN
+        UserProperties userProperties = new UserProperties();
+        userProperties.setSubjectHeader("X-Load-Test-Subject");
+        MockEnvironment production = new MockEnvironment();
+        MockEnvironment mixed = new MockEnvironment();
+        mixed.setActiveProfiles("loadtest", "prod");
+
+        // WHEN / THEN
+        assertThrows(IllegalStateException.class, () -> new UserConfiguration(userProperties, production));
+        assertThrows(IllegalStateException.class, () -> new UserConfiguration(userProperties, mixed));
+    }
+
+    @Test
+    void shouldStartWithSubjectHeaderInLoadTestProfileOrWithoutHeader() {
+        // GIVEN
+        UserProperties withHeader = new UserProperties();
+        withHeader.setSubjectHeader("X-Load-Test-Subject");
+        MockEnvironment loadTest = new MockEnvironment();
+        loadTest.setActiveProfiles("loadtest");
+
+        // WHEN / THEN
+        assertDoesNotThrow(() -> new UserConfiguration(withHeader, loadTest));
+        assertDoesNotThrow(() -> new UserConfiguration(new UserProperties(), new MockEnvironment()));
+    }
+}
@@ -0,0 +1,122 @@
+package WAWRO.PRE_KONSULTACJE.controller;
+
+import WAWRO.PRE_KONSULTACJE.model.entity.Comment;
+import WAWRO.PRE_KONSULTACJE.model.entity.PreConsultation;
+import WAWRO.PRE_KONSULTACJE.model.entity.User;
+import WAWRO.PRE_KONSULTACJE.model.enums.ModerationStatus;
+import WAWRO.PRE_KONSULTACJE.model.enums.Role;
+import WAWRO.PRE_KONSULTACJE.repository.CommentRepository;
+import WAWRO.PRE_KONSULTACJE.repository.PreConsultationRepository;
+import WAWRO.PRE_KONSULTACJE.repository.UserRepository;
+import WAWRO.PRE_KONSULTACJE.service.ConsultationDetailCache;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Declared SQL budgets of the busiest read endpoints. The fixture has one author per comment,
+ * so a lazy association walked per row shows up as dozens of statements and fails the build.
+ * Budgets are for a warm identity cache and exclude the consultation detail cache.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(QueryBudgetTest.QueryCountingConfiguration.class)
+class QueryBudgetTest {
+
+    private static final int COMMENTS = 30;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PreConsultationRepository preConsultationRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ConsultationDetailCache consultationDetailCache;
+
+    private final List<User> authors = new ArrayList<>();
+    private final List<Comment> comments = new ArrayList<>();
+    private PreConsultation consultation;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (int i = 0; i < COMMENTS; i++) {
+            authors.add(userRepository.save(User.builder().firstName("Jan" + i).lastName("Budżetowy" + i)
+                    .email("query-budget-" + i + "@test.pl").role(Role.IDENTIFIED_USER)
+                    .dateCreated(LocalDateTime.now()).build()));
+        }
+        consultation = preConsultationRepository.save(PreConsultation.builder().subject("Budżet zapytań")
+                .description("Konsultacja testowa").active(true).dateCreated(LocalDateTime.now())
+                .author(authors.getFirst()).comments(new ArrayList<>()).activeCommentCount(COMMENTS).build());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < COMMENTS; i++) {
+            comments.add(Comment.builder().content("Komentarz " + i).dateCreated(now.plusSeconds(i))
+                    .moderationStatus(ModerationStatus.APPROVED).author(authors.get(i))
+                    .preConsultation(consultation).build());
+        }
+        commentRepository.saveAll(comments);
+        // Resolves the current user once, as any request after the first would find it cached.
+        mockMvc.perform(get("/api/v1/pre-consultations/{id}/comments", consultation.getId()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        commentRepository.deleteAll(comments);
+        preConsultationRepository.delete(consultation);
+        userRepository.deleteAll(authors);
+    }
+
+    @Test
+    void listConsultations_shouldStayWithinTwoQueries() throws Exception {
+        assertQueryBudget(2, get("/api/v1/pre-consultations").param("size", "20"));
+    }
+
+    @Test
+    void listComments_shouldStayWithinTwoQueries() throws Exception {
+        assertQueryBudget(2, get("/api/v1/pre-consultations/{id}/comments", consultation.getId()).param("size", "50"));
+    }
+
+    @Test
+    void consultationDetail_shouldStayWithinTwoQueriesOnCacheMiss() throws Exception {
+        consultationDetailCache.invalidate(consultation.getId());
+
+        assertQueryBudget(2, get("/api/v1/pre-consultations/{id}", consultation.getId()));
+    }
+
+    private void assertQueryBudget(int budget, RequestBuilder request) throws Exception {
+        QueryCounter.reset();
+        mockMvc.perform(request).andExpect(status().isOk());
+        List<String> statements = QueryCounter.statements();
+        assertTrue(statements.size() <= budget, () -> "Query budget of " + budget + " exceeded by "
+                + statements.size() + " statements:\n" + String.join("\n", statements));
+    }
+
+    @TestConfiguration
+    static class QueryCountingConfiguration {
+
+        @Bean
+        HibernatePropertiesCustomizer queryCountingCustomizer() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCounter());
+        }
+    }
+}
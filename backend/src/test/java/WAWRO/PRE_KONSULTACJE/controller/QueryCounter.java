@@ -0,0 +1,30 @@
+package WAWRO.PRE_KONSULTACJE.controller;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records every SQL statement Hibernate prepares on the current thread. MockMvc runs the whole
+ * request on the test thread, so background work (moderation workers, schedulers) never leaks
+ * into a measurement.
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get().add(sql);
+        return sql;
+    }
+
+    static void reset() {
+        STATEMENTS.get().clear();
+    }
+
+    static List<String> statements() {
+        return List.copyOf(STATEMENTS.get());
+    }
+}
@@ -0,0 +1,96 @@
+package WAWRO.PRE_KONSULTACJE.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Stand-in for the Python AI service: answers {@code /moderate} and {@code /summarize} after a
+ * configurable delay, failing a configurable share of calls with a 500. Every exchange runs on
+ * its own virtual thread, so a slow stub never limits the concurrency of the backend under test.
+ */
+public class AiStubServer implements AutoCloseable {
+
+    private final LoadTestConfig config;
+    private final HttpServer server;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public AiStubServer(LoadTestConfig config) throws IOException {
+        this.config = config;
+        this.server = HttpServer.create(new InetSocketAddress(config.aiPort()), 1024);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.createContext("/moderate", exchange -> handle(exchange, this::moderationVerdict));
+        this.server.createContext("/summarize", exchange -> handle(exchange,
+                () -> "{\"summary\":\"Streszczenie wygenerowane przez serwer testowy.\"}"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        AiStubServer stub = new AiStubServer(config);
+        stub.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::close));
+        Thread.currentThread().join();
+    }
+
+    public void start() {
+        server.start();
+        System.out.printf("AI stub listening on :%d (latency %d+/-%d ms, error rate %.2f)%n",
+                config.aiPort(), config.aiLatencyMillis(), config.aiJitterMillis(), config.aiErrorRate());
+    }
+
+    public long calls() {
+        return calls.sum();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange, Supplier<String> body) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            calls.increment();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long delay = config.aiLatencyMillis()
+                    + (config.aiJitterMillis() > 0 ? random.nextLong(-config.aiJitterMillis(), config.aiJitterMillis() + 1) : 0);
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+            if (random.nextDouble() < config.aiErrorRate()) {
+                errors.increment();
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            byte[] response = body.get().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String moderationVerdict() {
+        double roll = ThreadLocalRandom.current().nextDouble();
+        String decision = roll < config.aiBlockRate() ? "BLOCK"
+                : roll < config.aiBlockRate() + config.aiReviewRate() ? "REVIEW"
+                : "OK";
+        return "{\"decision\":\"" + decision + "\"}";
+    }
+}
@@ -0,0 +1,79 @@
+package WAWRO.PRE_KONSULTACJE.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects every response time per operation (in microseconds) and turns them into percentiles
+ * once the run is over. Keeping the raw samples costs 8 bytes per request, which is fine for the
+ * few million requests of a run and avoids the rounding of a bucketed histogram.
+ */
+final class LatencyRecorder {
+
+    private final Map<Operation, Samples> samples = new EnumMap<>(Operation.class);
+
+    LatencyRecorder() {
+        for (Operation operation : Operation.values()) {
+            samples.put(operation, new Samples());
+        }
+    }
+
+    void record(Operation operation, long nanos, boolean success) {
+        samples.get(operation).add(nanos / 1_000, success);
+    }
+
+    List<EndpointResult> results(Duration measured) {
+        double seconds = measured.toNanos() / 1e9;
+        List<EndpointResult> results = new ArrayList<>();
+        samples.forEach((operation, operationSamples) -> {
+            EndpointResult result = operationSamples.summarize(operation.label(), seconds);
+            if (result != null) {
+                results.add(result);
+            }
+        });
+        return results;
+    }
+
+    record EndpointResult(String endpoint, long requests, long errors, double throughputPerSecond,
+                          double p50Millis, double p90Millis, double p99Millis, double p999Millis,
+                          double maxMillis) {
+    }
+
+    private static final class Samples {
+
+        private long[] micros = new long[1024];
+        private int size;
+        private long errors;
+
+        synchronized void add(long value, boolean success) {
+            if (size == micros.length) {
+                micros = Arrays.copyOf(micros, size * 2);
+            }
+            micros[size++] = value;
+            if (!success) {
+                errors++;
+            }
+        }
+
+        synchronized EndpointResult summarize(String endpoint, double seconds) {
+            if (size == 0) {
+                return null;
+            }
+            long[] sorted = Arrays.copyOf(micros, size);
+            Arrays.sort(sorted);
+            return new EndpointResult(endpoint, size, errors, size / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), sorted[size - 1] / 1000.0);
+        }
+    }
+
+    // Nearest-rank percentile, in milliseconds.
+    static double percentile(long[] sortedMicros, double quantile) {
+        int rank = (int) Math.ceil(quantile * sortedMicros.length);
+        return sortedMicros[Math.max(rank, 1) - 1] / 1000.0;
+    }
+}
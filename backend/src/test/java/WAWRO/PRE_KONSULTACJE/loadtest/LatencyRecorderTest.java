@@ -0,0 +1,37 @@
+package WAWRO.PRE_KONSULTACJE.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyRecorderTest {
+
+    @Test
+    void shouldReportNearestRankPercentilesAndThroughputPerEndpoint() {
+        // GIVEN
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (int millis = 1; millis <= 1000; millis++) {
+            recorder.record(Operation.COMMENTS, millis * 1_000_000L, millis % 100 != 0);
+        }
+        recorder.record(Operation.APPROVE, 5_000_000L, true);
+
+        // WHEN
+        List<LatencyRecorder.EndpointResult> results = recorder.results(Duration.ofSeconds(10));
+
+        // THEN
+        assertEquals(2, results.size());
+        LatencyRecorder.EndpointResult comments = results.getFirst();
+        assertEquals(Operation.COMMENTS.label(), comments.endpoint());
+        assertEquals(1000, comments.requests());
+        assertEquals(10, comments.errors());
+        assertEquals(100.0, comments.throughputPerSecond(), 1e-9);
+        assertEquals(500.0, comments.p50Millis(), 1e-9);
+        assertEquals(990.0, comments.p99Millis(), 1e-9);
+        assertEquals(999.0, comments.p999Millis(), 1e-9);
+        assertEquals(1000.0, comments.maxMillis(), 1e-9);
+        assertEquals(5.0, results.get(1).p50Millis(), 1e-9);
+    }
+}
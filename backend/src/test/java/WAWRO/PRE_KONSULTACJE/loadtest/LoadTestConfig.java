@@ -0,0 +1,84 @@
+package WAWRO.PRE_KONSULTACJE.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Scenario of one load-test run, read from {@code loadtest.*} system properties so a run can be
+ * tuned from the Maven command line, e.g. {@code -Dloadtest.users=200 -Dloadtest.mix=comments:80,approve:20}.
+ */
+public record LoadTestConfig(
+        String baseUrl,
+        Duration duration,
+        Duration warmup,
+        int users,
+        Duration thinkTime,
+        Map<Operation, Integer> mix,
+        int consultations,
+        int seedComments,
+        double consultationSkew,
+        Duration stormInterval,
+        int stormSize,
+        int subjects,
+        boolean aiStub,
+        int aiPort,
+        long aiLatencyMillis,
+        long aiJitterMillis,
+        double aiErrorRate,
+        double aiBlockRate,
+        double aiReviewRate,
+        Path resultFile
+) {
+
+    private static final String DEFAULT_MIX =
+            "list:10,detail:15,comments:45,search:5,comment:10,approve:15,moderate:0,summary:0";
+
+    public static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                property("baseUrl", "http://localhost:8080"),
+                Duration.ofSeconds(Long.parseLong(property("durationSeconds", "60"))),
+                Duration.ofSeconds(Long.parseLong(property("warmupSeconds", "10"))),
+                Integer.parseInt(property("users", "100")),
+                Duration.ofMillis(Long.parseLong(property("thinkTimeMillis", "0"))),
+                parseMix(property("mix", DEFAULT_MIX)),
+                Integer.parseInt(property("consultations", "50")),
+                Integer.parseInt(property("seedComments", "1000")),
+                Double.parseDouble(property("consultationSkew", "1.1")),
+                Duration.ofSeconds(Long.parseLong(property("stormIntervalSeconds", "20"))),
+                Integer.parseInt(property("stormSize", "500")),
+                Integer.parseInt(property("subjects", "10000")),
+                Boolean.parseBoolean(property("aiStub", "true")),
+                Integer.parseInt(property("aiPort", "8099")),
+                Long.parseLong(property("aiLatencyMillis", "300")),
+                Long.parseLong(property("aiJitterMillis", "150")),
+                Double.parseDouble(property("aiErrorRate", "0.02")),
+                Double.parseDouble(property("aiBlockRate", "0.05")),
+                Double.parseDouble(property("aiReviewRate", "0.05")),
+                Path.of(property("resultFile", "target/loadtest-result.json")));
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight in loadtest.mix, got: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in loadtest.mix: " + entry);
+            }
+            weights.put(Operation.fromKey(parts[0].trim()), weight);
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("loadtest.mix has no operation with a positive weight");
+        }
+        return weights;
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+}
@@ -0,0 +1,344 @@
+package WAWRO.PRE_KONSULTACJE.loadtest;
+
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentCreateAnalogDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentCreateDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.PreConsultationCreateDTO;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load generator for a running backend ({@code loadtest} profile, see readme section 5).
+ * <p>
+ * It seeds consultations and comments through the public API, then runs {@code users} virtual users.
+ * Each user picks an operation by the weights of {@code loadtest.mix} and a consultation by Zipf
+ * rank, repeating until the run ends. A separate loop fires an approval storm every
+ * {@code stormInterval}: {@code stormSize} concurrent approvals of one comment of the hottest
+ * consultation, each from a different subject. Requests during the warm-up are not recorded.
+ * Per-endpoint latency percentiles and throughput are printed and written to {@code resultFile}.
+ */
+public class LoadTestRunner {
+
+    private static final String API = "/api/v1/pre-consultations";
+    private static final String SUBJECT_HEADER = "X-Load-Test-Subject";
+    private static final int KNOWN_COMMENTS_PER_CONSULTATION = 1_000;
+    private static final int ANALOG_AUTHORS = 2_000;
+    private static final String[] WORDS = {
+            "projekt", "ustawa", "przepis", "gmina", "podatek", "szkoła", "zdrowie", "transport",
+            "mieszkańcy", "budżet", "środowisko", "konsultacje", "nowelizacja", "termin", "opłata",
+            "samorząd", "przedsiębiorcy", "rozporządzenie", "uzasadnienie", "wniosek"};
+
+    private final LoadTestConfig config;
+    private final HttpClient client;
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final List<Long> consultationIds = new ArrayList<>();
+    private final Map<Long, List<Long>> knownComments = new ConcurrentHashMap<>();
+    private final AtomicLong stormSubjects = new AtomicLong();
+    private final ZipfSampler consultationSampler;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private volatile boolean recording;
+
+    public LoadTestRunner(LoadTestConfig config) {
+        this.config = config;
+        this.client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.consultationSampler = new ZipfSampler(config.consultations(), config.consultationSkew());
+        this.operations = config.mix().keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += config.mix().get(operations[i]);
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        try (AiStubServer aiStub = config.aiStub() ? new AiStubServer(config) : null) {
+            if (aiStub != null) {
+                aiStub.start();
+            }
+            LoadTestRunner runner = new LoadTestRunner(config);
+            runner.seed();
+            Duration measured = runner.run();
+            runner.report(measured, aiStub);
+        }
+    }
+
+    void seed() throws IOException, InterruptedException {
+        System.out.printf("Seeding %d consultations and %d comments on %s%n",
+                config.consultations(), config.seedComments(), config.baseUrl());
+        for (int i = 0; i < config.consultations(); i++) {
+            JsonNode consultation = seedRequest(post(API, new PreConsultationCreateDTO(
+                    "Konsultacja obciążeniowa " + i, sentence(ThreadLocalRandom.current(), 40))));
+            long consultationId = consultation.get("id").asLong();
+            consultationIds.add(consultationId);
+            knownComments.put(consultationId, new ArrayList<>());
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int rank = 0; rank < consultationIds.size(); rank++) {
+            long consultationId = consultationIds.get(rank);
+            int count = (int) Math.round(config.seedComments() * consultationSampler.share(rank));
+            if (count == 0) {
+                continue;
+            }
+            StringBuilder ndjson = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                int author = random.nextInt(ANALOG_AUTHORS);
+                ndjson.append(jsonMapper.writeValueAsString(new CommentCreateAnalogDTO(
+                        sentence(random, 12), "Jan" + author, "Analogowy" + author, "ul. Testowa " + author)))
+                        .append('\n');
+            }
+            seedRequest(request(API + "/analog/" + consultationId + "/comments/bulk", null)
+                    .header("Content-Type", "application/x-ndjson")
+                    .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString()))
+                    .build());
+            rememberComments(consultationId, seedRequest(
+                    request(API + "/" + consultationId + "/comments?size=200", null).GET().build()));
+        }
+    }
+
+    Duration run() throws InterruptedException {
+        long warmupEnd = System.nanoTime() + config.warmup().toNanos();
+        long deadline = warmupEnd + config.duration().toNanos();
+        System.out.printf("Running %d users for %ds after %ds of warm-up, mix %s%n",
+                config.users(), config.duration().toSeconds(), config.warmup().toSeconds(), config.mix());
+        long measureStart;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < config.users(); i++) {
+                executor.submit(() -> userLoop(deadline));
+            }
+            executor.submit(() -> stormLoop(deadline));
+            Thread.sleep(config.warmup());
+            recording = true;
+            measureStart = System.nanoTime();
+        }
+        return Duration.ofNanos(Math.min(System.nanoTime(), deadline) - measureStart);
+    }
+
+    void report(Duration measured, AiStubServer aiStub) throws IOException {
+        List<LatencyRecorder.EndpointResult> results = recorder.results(measured);
+        System.out.printf("%n%-62s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (LatencyRecorder.EndpointResult result : results) {
+            System.out.printf("%-62s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    result.endpoint(), result.requests(), result.errors(), result.throughputPerSecond(),
+                    result.p50Millis(), result.p90Millis(), result.p99Millis(), result.p999Millis(), result.maxMillis());
+        }
+        if (aiStub != null) {
+            System.out.printf("AI stub: %d calls, %d injected errors%n", aiStub.calls(), aiStub.errors());
+        }
+
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        config.mix().forEach((operation, weight) -> mix.put(operation.label(), weight));
+        LoadTestReport report = new LoadTestReport(config.baseUrl(), measured.toMillis(), config.users(), mix,
+                config.consultations(), config.consultationSkew(), config.stormSize(),
+                config.aiLatencyMillis(), config.aiErrorRate(),
+                aiStub != null ? aiStub.calls() : 0, aiStub != null ? aiStub.errors() : 0, results);
+        if (config.resultFile().getParent() != null) {
+            Files.createDirectories(config.resultFile().getParent());
+        }
+        jsonMapper.writerWithDefaultPrettyPrinter().writeValue(config.resultFile().toFile(), report);
+        System.out.println("Results written to " + config.resultFile().toAbsolutePath());
+    }
+
+    private void userLoop(long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            execute(pickOperation(random), random);
+            if (!config.thinkTime().isZero()) {
+                sleep(config.thinkTime());
+            }
+        }
+    }
+
+    private void stormLoop(long deadline) {
+        while (System.nanoTime() + config.stormInterval().toNanos() < deadline && config.stormSize() > 0) {
+            sleep(config.stormInterval());
+            long consultationId = consultationIds.getFirst();
+            Long commentId = randomKnownComment(consultationId, ThreadLocalRandom.current());
+            if (commentId == null) {
+                continue;
+            }
+            try (ExecutorService storm = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < config.stormSize(); i++) {
+                    // Consecutive subjects, so every approval of a storm comes from a different user.
+                    String subject = subject(stormSubjects.getAndIncrement() % config.subjects());
+                    storm.submit(() -> send(Operation.STORM_APPROVE, request(
+                            API + "/" + consultationId + "/comments/" + commentId + "/approve", subject)
+                            .POST(HttpRequest.BodyPublishers.noBody()).build()));
+                }
+            }
+        }
+    }
+
+    private void execute(Operation operation, ThreadLocalRandom random) {
+        long consultationId = consultationIds.get(consultationSampler.sample(random));
+        String subject = subject(random.nextInt(config.subjects()));
+        switch (operation) {
+            case LIST -> send(operation, request(API + "?page=" + random.nextInt(3) + "&size=20", subject).GET().build());
+            case DETAIL -> send(operation, request(API + "/" + consultationId, subject).GET().build());
+            case COMMENTS -> {
+                HttpResponse<byte[]> response = send(operation,
+                        request(API + "/" + consultationId + "/comments?size=50", subject).GET().build());
+                if (response != null) {
+                    rememberComments(consultationId, jsonMapper.readTree(response.body()));
+                }
+            }
+            case SEARCH -> send(operation, request("/api/v1/comments/search?q="
+                    + URLEncoder.encode(WORDS[random.nextInt(WORDS.length)], StandardCharsets.UTF_8), subject).GET().build());
+            case COMMENT -> {
+                HttpResponse<byte[]> response = send(operation, post(API + "/" + consultationId + "/comments",
+                        new CommentCreateDTO(sentence(random, 12)), subject));
+                if (response != null) {
+                    remember(consultationId, jsonMapper.readTree(response.body()).get("id").asLong());
+                }
+            }
+            case APPROVE, MODERATE -> {
+                Long commentId = randomKnownComment(consultationId, random);
+                if (commentId != null) {
+                    String path = operation == Operation.APPROVE
+                            ? API + "/" + consultationId + "/comments/" + commentId + "/approve"
+                            : API + "/moderator/" + commentId + "/moderate";
+                    send(operation, request(path, subject).POST(HttpRequest.BodyPublishers.noBody()).build());
+                }
+            }
+            case SUMMARY -> send(operation, request(API + "/" + consultationId + "/summary?type=UST", subject)
+                    .POST(HttpRequest.BodyPublishers.noBody()).build());
+            case STORM_APPROVE -> throw new IllegalStateException("Storm approvals are not part of the mix");
+        }
+    }
+
+    private HttpResponse<byte[]> send(Operation operation, HttpRequest request) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            boolean success = response.statusCode() < 400;
+            if (recording) {
+                recorder.record(operation, System.nanoTime() - start, success);
+            }
+            return success ? response : null;
+        } catch (IOException e) {
+            if (recording) {
+                recorder.record(operation, System.nanoTime() - start, false);
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private JsonNode seedRequest(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("Seeding failed: " + request.method() + " " + request.uri()
+                    + " answered " + response.statusCode() + ": " + response.body());
+        }
+        String body = response.body();
+        // The bulk import answers with an NDJSON report; its last line is the summary.
+        return jsonMapper.readTree(body.substring(body.stripTrailing().lastIndexOf('\n') + 1));
+    }
+
+    private HttpRequest post(String path, Object body) {
+        return post(path, body, null);
+    }
+
+    private HttpRequest post(String path, Object body, String subject) {
+        return request(path, subject)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(jsonMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path, String subject) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(config.baseUrl() + path))
+                .timeout(Duration.ofSeconds(30));
+        return subject != null ? builder.header(SUBJECT_HEADER, subject) : builder;
+    }
+
+    private Operation pickOperation(ThreadLocalRandom random) {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException("Weight roll out of range: " + roll);
+    }
+
+    private void rememberComments(long consultationId, JsonNode page) {
+        for (JsonNode comment : page.path("comments")) {
+            remember(consultationId, comment.get("id").asLong());
+        }
+    }
+
+    private void remember(long consultationId, long commentId) {
+        List<Long> comments = knownComments.get(consultationId);
+        synchronized (comments) {
+            if (comments.size() < KNOWN_COMMENTS_PER_CONSULTATION) {
+                comments.add(commentId);
+            } else {
+                comments.set(ThreadLocalRandom.current().nextInt(KNOWN_COMMENTS_PER_CONSULTATION), commentId);
+            }
+        }
+    }
+
+    private Long randomKnownComment(long consultationId, ThreadLocalRandom random) {
+        List<Long> comments = knownComments.get(consultationId);
+        synchronized (comments) {
+            return comments.isEmpty() ? null : comments.get(random.nextInt(comments.size()));
+        }
+    }
+
+    private static String subject(long index) {
+        return "loadtest-user-" + index + "@test.pl";
+    }
+
+    private static String sentence(ThreadLocalRandom random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.append('.').toString();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    record LoadTestReport(String baseUrl, long measuredMillis, int users, Map<String, Integer> mix,
+                          int consultations, double consultationSkew, int stormSize,
+                          long aiLatencyMillis, double aiErrorRate, long aiCalls, long aiErrors,
+                          List<LatencyRecorder.EndpointResult> endpoints) {
+    }
+}
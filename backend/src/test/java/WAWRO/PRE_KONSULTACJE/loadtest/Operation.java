@@ -0,0 +1,37 @@
+package WAWRO.PRE_KONSULTACJE.loadtest;
+
+/**
+ * Request types of the scenario; {@link #label} is the endpoint the results are reported under.
+ */
+public enum Operation {
+    LIST("list", "GET /pre-consultations"),
+    DETAIL("detail", "GET /pre-consultations/{id}"),
+    COMMENTS("comments", "GET /pre-consultations/{id}/comments"),
+    SEARCH("search", "GET /comments/search"),
+    COMMENT("comment", "POST /pre-consultations/{id}/comments"),
+    APPROVE("approve", "POST /pre-consultations/{id}/comments/{id}/approve"),
+    MODERATE("moderate", "POST /pre-consultations/moderator/{id}/moderate"),
+    SUMMARY("summary", "POST /pre-consultations/{id}/summary"),
+    STORM_APPROVE("storm", "POST /pre-consultations/{id}/comments/{id}/approve (storm)");
+
+    private final String key;
+    private final String label;
+
+    Operation(String key, String label) {
+        this.key = key;
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    static Operation fromKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key) && operation != STORM_APPROVE) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown load-test operation: " + key);
+    }
+}
@@ -0,0 +1,39 @@
+package WAWRO.PRE_KONSULTACJE.loadtest;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Picks ranks 0..size-1 with Zipf-distributed popularity: rank 0 is the hottest consultation and
+ * an exponent around 1 gives the usual "a few consultations get most of the traffic" shape.
+ * Exponent 0 degenerates to a uniform choice.
+ */
+final class ZipfSampler {
+
+    private final double[] cumulative;
+
+    ZipfSampler(int size, double exponent) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Zipf sampler needs at least one rank");
+        }
+        cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    int sample(RandomGenerator random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+
+    double share(int rank) {
+        return rank == 0 ? cumulative[0] : cumulative[rank] - cumulative[rank - 1];
+    }
+}
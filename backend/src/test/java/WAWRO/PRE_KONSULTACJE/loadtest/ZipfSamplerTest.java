@@ -0,0 +1,39 @@
+package WAWRO.PRE_KONSULTACJE.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipfSamplerTest {
+
+    @Test
+    void shouldFavourLowRanksAccordingToExponent() {
+        // GIVEN
+        ZipfSampler sampler = new ZipfSampler(10, 1.0);
+        SplittableRandom random = new SplittableRandom(42);
+        int[] hits = new int[10];
+
+        // WHEN
+        for (int i = 0; i < 100_000; i++) {
+            hits[sampler.sample(random)]++;
+        }
+
+        // THEN
+        assertEquals(1 / 2.928968, sampler.share(0), 1e-6);
+        assertEquals(sampler.share(0) * 100_000, hits[0], 1_000);
+        assertTrue(hits[0] > 5 * hits[9]);
+    }
+
+    @Test
+    void shouldBeUniformWithZeroExponent() {
+        // GIVEN
+        ZipfSampler sampler = new ZipfSampler(4, 0);
+
+        // THEN
+        for (int rank = 0; rank < 4; rank++) {
+            assertEquals(0.25, sampler.share(rank), 1e-9);
+        }
+    }
+}
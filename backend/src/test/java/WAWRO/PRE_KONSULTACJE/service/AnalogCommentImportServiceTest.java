@@ -0,0 +1,156 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.config.CommentProperties;
+import WAWRO.PRE_KONSULTACJE.event.CommentEvent;
+import WAWRO.PRE_KONSULTACJE.model.dto.ImportSummaryDTO;
+import WAWRO.PRE_KONSULTACJE.repository.PreConsultationRepository;
+import WAWRO.PRE_KONSULTACJE.utils.NearDuplicateIndex;
+import WAWRO.PRE_KONSULTACJE.utils.ProfanityFilter;
+import WAWRO.PRE_KONSULTACJE.utils.SequenceIdAllocator;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalogCommentImportServiceTest {
+
+    private static final Long CONSULTATION_ID = 1L;
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private PreConsultationRepository preConsultationRepository;
+    @Mock
+    private AnalogUserResolver analogUserResolver;
+    @Mock
+    private SequenceIdAllocator idAllocator;
+    @Mock
+    private NearDuplicateIndex nearDuplicateIndex;
+    @Mock
+    private ProfanityFilter profanityFilter;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private AnalogCommentImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        CommentProperties commentProperties = new CommentProperties();
+        commentProperties.setImportBatchSize(2);
+        commentProperties.setImportMaxLineLength(200);
+        importService = new AnalogCommentImportService(jdbcTemplate, transactionManager, preConsultationRepository,
+                analogUserResolver, idAllocator, nearDuplicateIndex, profanityFilter, Validation.buildDefaultValidatorFactory().getValidator(), JsonMapper.builder().build(),
+                eventPublisher, commentProperties);
+        // A Long-returning mock answers 0L, which would put every line into an existing cluster 0.
+        lenient().when(nearDuplicateIndex.findCluster(anyLong(), any())).thenReturn(null);
+    }
+
+    @Test
+    void importComments_shouldWriteBatchesAndReportEveryLine() throws Exception {
+        // GIVEN
+        AtomicLong ids = new AtomicLong(100);
+        when(idAllocator.allocate(eq(SequenceIdAllocator.COMMENTS_SEQUENCE), anyInt())).thenAnswer(invocation ->
+                LongStream.generate(ids::incrementAndGet).limit(invocation.<Integer>getArgument(1)).toArray());
+        when(analogUserResolver.resolveAll(anyList())).thenAnswer(invocation ->
+                invocation.<List<?>>getArgument(0).stream().map(identity -> 7L).toList());
+
+        String ndjson = """
+                {"content":"Pierwsza","firstName":"Jan","lastName":"Nowak"}
+                {"content":"Druga","firstName":"Anna","lastName":"Kowalska"}
+                {"content":
+                {"content":"","firstName":"Ewa","lastName":"Lis"}
+
+                {"content":"Trzecia","firstName":"Piotr","lastName":"Wiśniewski"}
+                """;
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+
+        // WHEN
+        ImportSummaryDTO summary = importService.importComments(CONSULTATION_ID,
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), report);
+
+        // THEN
+        assertEquals(new ImportSummaryDTO(5, 3, 2, 0), summary);
+        List<String> lines = report.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(6, lines.size());
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"line\":3") && line.contains("REJECTED")));
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"line\":4") && line.contains("REJECTED")));
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"line\":6") && line.contains("CREATED")));
+
+        verify(analogUserResolver, times(2)).resolveAll(anyList());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), any(SqlParameterSource[].class));
+        verify(preConsultationRepository).adjustCounters(CONSULTATION_ID, 2, 0, 0);
+        verify(preConsultationRepository).adjustCounters(CONSULTATION_ID, 1, 0, 0);
+        verify(eventPublisher, times(3)).publishEvent(any(CommentEvent.class));
+    }
+
+    @Test
+    void importComments_shouldRejectNullAndOverlongLinesAndCarryOn() throws Exception {
+        // GIVEN
+        when(idAllocator.allocate(eq(SequenceIdAllocator.COMMENTS_SEQUENCE), anyInt())).thenReturn(new long[]{101L});
+        when(analogUserResolver.resolveAll(anyList())).thenReturn(List.of(7L));
+
+        String ndjson = "null\r\n"
+                + "{\"content\":\"" + "a".repeat(500) + "\",\"firstName\":\"Jan\",\"lastName\":\"Nowak\"}\n"
+                + "{\"content\":\"Po długiej linii\",\"firstName\":\"Anna\",\"lastName\":\"Kowalska\"}\r\n";
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+
+        // WHEN
+        ImportSummaryDTO summary = importService.importComments(CONSULTATION_ID,
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), report);
+
+        // THEN
+        assertEquals(new ImportSummaryDTO(3, 1, 2, 0), summary);
+        List<String> lines = report.toString(StandardCharsets.UTF_8).lines().toList();
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"line\":1") && line.contains("REJECTED")));
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"line\":2") && line.contains("longer than 200")));
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"line\":3") && line.contains("CREATED")));
+    }
+
+    @Test
+    void importComments_shouldLinkCopiesWithinOneBatchToTheFirstCopy() throws Exception {
+        // GIVEN
+        AtomicLong ids = new AtomicLong(100);
+        when(idAllocator.allocate(eq(SequenceIdAllocator.COMMENTS_SEQUENCE), anyInt())).thenAnswer(invocation ->
+                LongStream.generate(ids::incrementAndGet).limit(invocation.<Integer>getArgument(1)).toArray());
+        when(analogUserResolver.resolveAll(anyList())).thenAnswer(invocation ->
+                invocation.<List<?>>getArgument(0).stream().map(identity -> 7L).toList());
+
+        String ndjson = """
+                {"content":"Nie zgadzam się z art. 5 projektu ustawy","firstName":"Jan","lastName":"Nowak"}
+                {"content":"Nie zgadzam się z art. 5 projektu ustawy!","firstName":"Anna","lastName":"Kowalska"}
+                """;
+
+        // WHEN
+        importService.importComments(CONSULTATION_ID,
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream());
+
+        // THEN
+        verify(jdbcTemplate).batchUpdate(startsWith("insert into comments"), argThat(
+                (SqlParameterSource[] rows) -> rows.length == 2
+                        && rows[0].getValue("clusterId") == null
+                        && Long.valueOf(101L).equals(rows[1].getValue("clusterId"))
+                        && Long.valueOf(102L).equals(rows[1].getValue("id"))));
+        verifyNoMoreInteractions(jdbcTemplate);
+        verify(nearDuplicateIndex, times(2)).addAfterCommit(eq(CONSULTATION_ID), any(int[].class), eq(101L));
+    }
+}
@@ -0,0 +1,45 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentExportRowDTO;
+import WAWRO.PRE_KONSULTACJE.model.enums.ModerationStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommentExportServiceTest {
+
+    @Test
+    void csvField_shouldQuoteOnlyWhenNeeded() {
+        assertEquals("plain text", CommentExportService.csvField("plain text"));
+        assertEquals("", CommentExportService.csvField(null));
+        assertEquals("\"a, b\"", CommentExportService.csvField("a, b"));
+        assertEquals("\"say \"\"no\"\"\"", CommentExportService.csvField("say \"no\""));
+        assertEquals("\"line\nbreak\"", CommentExportService.csvField("line\nbreak"));
+    }
+
+    @Test
+    void csvField_shouldNeutralizeFormulas() {
+        assertEquals("\"'=HYPERLINK(\"\"http://x\"\",\"\"klik\"\")\"",
+                CommentExportService.csvField("=HYPERLINK(\"http://x\",\"klik\")"));
+        assertEquals("\"'+48 123\"", CommentExportService.csvField("+48 123"));
+        assertEquals("\"'-1\"", CommentExportService.csvField("-1"));
+        assertEquals("\"'@SUM(A1)\"", CommentExportService.csvField("@SUM(A1)"));
+        assertEquals("\"'\tx\"", CommentExportService.csvField("\tx"));
+        assertEquals("a=b", CommentExportService.csvField("a=b"));
+    }
+
+    @Test
+    void toCsv_shouldWriteColumnsInHeaderOrder() {
+        // GIVEN
+        CommentExportRowDTO row = new CommentExportRowDTO(7L, LocalDateTime.of(2025, 3, 1, 12, 30),
+                "Jan", "Kowalski", "Zgadzam się, ale...", 3, false, ModerationStatus.APPROVED);
+
+        // WHEN
+        String csv = CommentExportService.toCsv(row);
+
+        // THEN
+        assertEquals("7,2025-03-01T12:30,Jan,Kowalski,\"Zgadzam się, ale...\",3,false,APPROVED", csv);
+    }
+}
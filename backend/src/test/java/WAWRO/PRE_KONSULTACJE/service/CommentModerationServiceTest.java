@@ -0,0 +1,224 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.config.ModerationProperties;
+import WAWRO.PRE_KONSULTACJE.event.CommentEvent;
+import WAWRO.PRE_KONSULTACJE.mapper.CommentMapper;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentDTO;
+import WAWRO.PRE_KONSULTACJE.model.entity.Comment;
+import WAWRO.PRE_KONSULTACJE.model.enums.ModerationStatus;
+import WAWRO.PRE_KONSULTACJE.model.projection.CommentClusterMemberView;
+import WAWRO.PRE_KONSULTACJE.model.projection.CommentModerationView;
+import WAWRO.PRE_KONSULTACJE.repository.CommentRepository;
+import WAWRO.PRE_KONSULTACJE.repository.PreConsultationRepository;
+import WAWRO.PRE_KONSULTACJE.utils.AiService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CommentModerationServiceTest {
+
+    private static final Long CONSULTATION_ID = 1L;
+    private static final Long REPRESENTATIVE_ID = 1L;
+
+    @Mock
+    private CommentRepository commentRepository;
+    @Mock
+    private PreConsultationRepository preConsultationRepository;
+    @Mock
+    private AiService aiService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private CommentMapper commentMapper;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CommentModerationService moderationService;
+
+    @BeforeEach
+    void setUp() {
+        moderationService = new CommentModerationService(commentRepository, preConsultationRepository, aiService,
+                new ModerationProperties(), eventPublisher, commentMapper, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        moderationService.shutdown();
+    }
+
+    @Test
+    void moderateBatch_shouldChunkLargeClustersAndReportOnlyUpdatedRows() {
+        // GIVEN
+        when(commentRepository.findModerationViews(List.of(REPRESENTATIVE_ID), ModerationStatus.PENDING))
+                .thenReturn(List.of(candidate(REPRESENTATIVE_ID, "Spam")));
+        when(aiService.validateComments(eq(List.of("Spam")), anyInt())).thenReturn(List.of("BLOCK"));
+        List<CommentClusterMemberView> members = LongStream.rangeClosed(1, 2_500)
+                .mapToObj(id -> member(id, id == REPRESENTATIVE_ID ? null : REPRESENTATIVE_ID))
+                .toList();
+        when(commentRepository.findClusterMembers(List.of(REPRESENTATIVE_ID), ModerationStatus.PENDING))
+                .thenReturn(members);
+        // Comment 2 was handled by a moderator in the meantime and is no longer PENDING.
+        when(commentRepository.updateModerationStatus(any(), eq("PENDING"), eq("BLOCKED"), eq(true)))
+                .thenAnswer(invocation -> {
+                    List<Long> updated = new ArrayList<>(invocation.<Collection<Long>>getArgument(0));
+                    updated.remove(2L);
+                    return updated;
+                });
+
+        // WHEN
+        int moderated = moderationService.moderateBatch(List.of(REPRESENTATIVE_ID));
+
+        // THEN
+        assertEquals(2_499, moderated);
+        ArgumentCaptor<Collection<Long>> chunks = ArgumentCaptor.captor();
+        verify(commentRepository, times(3)).updateModerationStatus(chunks.capture(), anyString(), anyString(), anyBoolean());
+        assertTrue(chunks.getAllValues().stream().allMatch(chunk -> chunk.size() <= 1_000));
+        verify(preConsultationRepository).adjustCounters(CONSULTATION_ID, -999, 999, 0);
+        verify(preConsultationRepository).adjustCounters(CONSULTATION_ID, -1_000, 1_000, 0);
+        verify(preConsultationRepository).adjustCounters(CONSULTATION_ID, -500, 500, 0);
+        verifyNoMoreInteractions(preConsultationRepository);
+        ArgumentCaptor<CommentEvent> events = ArgumentCaptor.forClass(CommentEvent.class);
+        verify(eventPublisher, times(2_499)).publishEvent(events.capture());
+        assertTrue(events.getAllValues().stream().noneMatch(event -> event.commentId().equals(2L)));
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void moderateBatch_shouldRollBackStatusUpdateWhenCountersFail() {
+        // GIVEN
+        when(commentRepository.findModerationViews(List.of(REPRESENTATIVE_ID), ModerationStatus.PENDING))
+                .thenReturn(List.of(candidate(REPRESENTATIVE_ID, "Spam")));
+        when(aiService.validateComments(eq(List.of("Spam")), anyInt())).thenReturn(List.of("BLOCK"));
+        when(commentRepository.findClusterMembers(List.of(REPRESENTATIVE_ID), ModerationStatus.PENDING))
+                .thenReturn(List.of(member(REPRESENTATIVE_ID, null)));
+        when(commentRepository.updateModerationStatus(List.of(REPRESENTATIVE_ID), "PENDING", "BLOCKED", true))
+                .thenReturn(List.of(REPRESENTATIVE_ID));
+        when(preConsultationRepository.adjustCounters(CONSULTATION_ID, -1, 1, 0))
+                .thenThrow(new QueryTimeoutException("canceling statement due to statement timeout"));
+
+        // WHEN / THEN
+        assertThrows(QueryTimeoutException.class, () -> moderationService.moderateBatch(List.of(REPRESENTATIVE_ID)));
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void moderateNow_shouldApplyVerdictOnlyOnceTheAiServiceAnswers() throws Exception {
+        // GIVEN
+        Long commentId = 5L;
+        CompletableFuture<List<String>> verdicts = new CompletableFuture<>();
+        CommentDTO dto = new CommentDTO(commentId, "Spam", LocalDateTime.of(2025, 12, 1, 10, 0), 0L, null, true, false);
+        when(commentRepository.findModerationViews(List.of(commentId), ModerationStatus.PENDING))
+                .thenReturn(List.of(candidate(commentId, "Spam")));
+        when(aiService.validateCommentsAsync(eq(List.of("Spam")), anyInt())).thenReturn(verdicts);
+        when(commentRepository.findClusterMembers(List.of(commentId), ModerationStatus.PENDING))
+                .thenReturn(List.of(member(commentId, null)));
+        when(commentRepository.updateModerationStatus(List.of(commentId), "PENDING", "BLOCKED", true))
+                .thenReturn(List.of(commentId));
+        Comment comment = new Comment();
+        when(commentRepository.findWithAuthorById(commentId)).thenReturn(Optional.of(comment));
+        when(commentMapper.toDto(comment)).thenReturn(dto);
+
+        // WHEN
+        CompletableFuture<CommentDTO> result = moderationService.moderateNow(commentId);
+
+        // THEN
+        assertFalse(result.isDone());
+        verify(commentRepository, never()).updateModerationStatus(any(), anyString(), anyString(), anyBoolean());
+        verdicts.complete(List.of("BLOCK"));
+        assertSame(dto, result.get(5, TimeUnit.SECONDS));
+        verify(preConsultationRepository).adjustCounters(CONSULTATION_ID, -1, 1, 0);
+        verify(eventPublisher).publishEvent(new CommentEvent(CONSULTATION_ID, commentId, CommentEvent.Type.MODERATED));
+    }
+
+    @Test
+    void moderateNow_shouldReturnCommentAsItIsWhenNoLongerPending() {
+        // GIVEN
+        Long commentId = 5L;
+        CommentDTO dto = new CommentDTO(commentId, "Treść", LocalDateTime.of(2025, 12, 1, 10, 0), 0L, null, false, false);
+        when(commentRepository.findModerationViews(List.of(commentId), ModerationStatus.PENDING)).thenReturn(List.of());
+        Comment comment = new Comment();
+        when(commentRepository.findWithAuthorById(commentId)).thenReturn(Optional.of(comment));
+        when(commentMapper.toDto(comment)).thenReturn(dto);
+
+        // WHEN
+        CompletableFuture<CommentDTO> result = moderationService.moderateNow(commentId);
+
+        // THEN
+        assertSame(dto, result.join());
+        verifyNoInteractions(aiService, preConsultationRepository, eventPublisher);
+    }
+
+    private static CommentModerationView candidate(Long id, String content) {
+        return new CommentModerationView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getContent() {
+                return content;
+            }
+
+            @Override
+            public Long getPreConsultationId() {
+                return CONSULTATION_ID;
+            }
+
+            @Override
+            public Long getClusterId() {
+                return null;
+            }
+
+            @Override
+            public ModerationStatus getClusterStatus() {
+                return ModerationStatus.PENDING;
+            }
+        };
+    }
+
+    private static CommentClusterMemberView member(Long id, Long clusterId) {
+        return new CommentClusterMemberView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getPreConsultationId() {
+                return CONSULTATION_ID;
+            }
+
+            @Override
+            public Long getClusterId() {
+                return clusterId;
+            }
+        };
+    }
+}
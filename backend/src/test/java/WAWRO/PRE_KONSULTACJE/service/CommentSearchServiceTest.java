@@ -0,0 +1,57 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.config.CommentProperties;
+import WAWRO.PRE_KONSULTACJE.mapper.CommentMapper;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentSearchHitDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.PageDTO;
+import WAWRO.PRE_KONSULTACJE.repository.CommentRepository;
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CommentSearchServiceTest {
+
+    @Mock
+    private CommentRepository commentRepository;
+    @Mock
+    private CommentMapper commentMapper;
+
+    private CommentSearchService commentSearchService;
+
+    @BeforeEach
+    void setUp() {
+        commentSearchService = new CommentSearchService(commentRepository, commentMapper, new CommentProperties());
+    }
+
+    @Test
+    void search_shouldRejectTooShortQueryWithoutHittingDatabase() {
+        // WHEN / THEN
+        assertThrows(ValidationException.class, () -> commentSearchService.search("  a ", null, false, 0, null));
+        verifyNoInteractions(commentRepository);
+    }
+
+    @Test
+    void search_shouldTrimQueryAndCapPageSize() {
+        // GIVEN
+        when(commentRepository.search(anyString(), any(), anyBoolean(), any())).thenReturn(Page.empty());
+
+        // WHEN
+        PageDTO<CommentSearchHitDTO> result = commentSearchService.search("  art. 5 ", 101L, false, 2, 10_000);
+
+        // THEN
+        verify(commentRepository).search("art. 5", 101L, false, PageRequest.of(2, 200));
+        assertTrue(result.content().isEmpty());
+    }
+}
@@ -1,27 +1,40 @@
 package WAWRO.PRE_KONSULTACJE.service;
 
+import WAWRO.PRE_KONSULTACJE.config.CommentProperties;
+import WAWRO.PRE_KONSULTACJE.event.ApprovalToggledEvent;
+import WAWRO.PRE_KONSULTACJE.event.CommentEvent;
 import WAWRO.PRE_KONSULTACJE.mapper.CommentMapper;
 import WAWRO.PRE_KONSULTACJE.model.dto.CommentCreateAnalogDTO;
 import WAWRO.PRE_KONSULTACJE.model.dto.CommentCreateDTO;
 import WAWRO.PRE_KONSULTACJE.model.dto.CommentDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentPageDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.PageDTO;
 import WAWRO.PRE_KONSULTACJE.model.entity.Comment;
 import WAWRO.PRE_KONSULTACJE.model.entity.PreConsultation;
 import WAWRO.PRE_KONSULTACJE.model.entity.User;
+import WAWRO.PRE_KONSULTACJE.model.enums.ModerationStatus;
+import WAWRO.PRE_KONSULTACJE.repository.CommentApprovalRepository;
 import WAWRO.PRE_KONSULTACJE.repository.CommentRepository;
 import WAWRO.PRE_KONSULTACJE.repository.PreConsultationRepository;
-import WAWRO.PRE_KONSULTACJE.utils.AiService;
+import WAWRO.PRE_KONSULTACJE.utils.ApprovalIndex;
+import WAWRO.PRE_KONSULTACJE.utils.CommentCursor;
+import WAWRO.PRE_KONSULTACJE.utils.NearDuplicateIndex;
+import WAWRO.PRE_KONSULTACJE.utils.ProfanityFilter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.HashSet;
 
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,13 +46,23 @@ class CommentServiceTest {
     @Mock
     private CommentRepository commentRepository;
     @Mock
+    private CommentApprovalRepository commentApprovalRepository;
+    @Mock
     private PreConsultationRepository preConsultationRepository;
     @Mock
     private CommentMapper commentMapper;
     @Mock
     private UserService userService;
     @Mock
-    private AiService aiService;
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private ProfanityFilter profanityFilter;
+    @Spy
+    private CommentProperties commentProperties = new CommentProperties();
+    @Mock
+    private ApprovalIndex approvalIndex;
+    @Mock
+    private NearDuplicateIndex nearDuplicateIndex;
 
     @InjectMocks
     private CommentService commentService;
@@ -65,28 +88,19 @@ class CommentServiceTest {
         testComment.setPreConsultation(testConsultation);
         testComment.setDateCreated(LocalDateTime.now());
         testComment.setBlocked(false);
-        testComment.setApproves(new HashSet<>());
 
-        testCommentDTO = new CommentDTO(COMMENT_ID, "Testowa treść", LocalDateTime.now(), null, null, false);
+        testCommentDTO = new CommentDTO(COMMENT_ID, "Testowa treść", LocalDateTime.now(), 0L, null, false, false);
     }
 
 
     @Test
-    void createComment_shouldCreateAndBlockIfValidationFails() {
+    void createComment_shouldSavePendingCommentWithoutWaitingForAi() {
         // GIVEN
         CommentCreateDTO createDTO = new CommentCreateDTO("Zła treść");
 
         when(userService.getLoggedUser()).thenReturn(testUser);
         when(preConsultationRepository.findByIdOrThrow(CONSULTATION_ID)).thenReturn(testConsultation);
-        when(aiService.validateComment("Zła treść")).thenReturn("SPAM");
-        doAnswer(invocation -> {
-            Comment comment = new Comment();
-            comment.setAuthor(testUser);
-            comment.setPreConsultation(testConsultation);
-            comment.setDateCreated(LocalDateTime.now());
-            return comment;
-        }).when(commentRepository).save(any(Comment.class));
-
+        when(commentRepository.save(any(Comment.class))).thenReturn(testComment);
         when(commentMapper.toDto(any(Comment.class))).thenReturn(testCommentDTO);
 
         // WHEN
@@ -94,41 +108,81 @@ class CommentServiceTest {
 
         // THEN
         verify(commentRepository).save(argThat(comment ->
-                comment.isBlocked() && comment.getContent().equals("Zła treść")
+                !comment.isBlocked()
+                        && comment.getModerationStatus() == ModerationStatus.PENDING
+                        && comment.getContent().equals("Zła treść")
         ));
+        verify(preConsultationRepository).adjustCounters(CONSULTATION_ID, 1, 0, 0);
         assertEquals(testCommentDTO, result);
     }
 
     @Test
-    void createComment_shouldCreateAndNotBlockIfValidationSucceeds() {
+    void createComment_shouldPublishCreatedEventForModerationQueue() {
         // GIVEN
         CommentCreateDTO createDTO = new CommentCreateDTO("Dobra treść");
 
         when(userService.getLoggedUser()).thenReturn(testUser);
         when(preConsultationRepository.findByIdOrThrow(CONSULTATION_ID)).thenReturn(testConsultation);
-        when(aiService.validateComment("Dobra treść")).thenReturn("OK");
+        when(commentRepository.save(any(Comment.class))).thenReturn(testComment);
+        when(commentMapper.toDto(any(Comment.class))).thenReturn(testCommentDTO);
+
+        // WHEN
+        commentService.createComment(CONSULTATION_ID, createDTO);
+
+        // THEN
+        verify(eventPublisher).publishEvent(
+                new CommentEvent(CONSULTATION_ID, COMMENT_ID, CommentEvent.Type.CREATED));
+    }
+
+    @Test
+    void createComment_shouldJoinClusterOfNearDuplicate() {
+        // GIVEN
+        CommentCreateDTO createDTO = new CommentCreateDTO("Jestem przeciw tej ustawie");
+
+        when(userService.getLoggedUser()).thenReturn(testUser);
+        when(preConsultationRepository.findByIdOrThrow(CONSULTATION_ID)).thenReturn(testConsultation);
+        when(nearDuplicateIndex.findCluster(eq(CONSULTATION_ID), any(int[].class))).thenReturn(5L);
+        when(commentRepository.save(any(Comment.class))).thenReturn(testComment);
+        when(commentMapper.toDto(any(Comment.class))).thenReturn(testCommentDTO);
+
+        // WHEN
+        commentService.createComment(CONSULTATION_ID, createDTO);
+
+        // THEN
+        verify(commentRepository).save(argThat(comment -> Long.valueOf(5L).equals(comment.getClusterId())));
+        verify(nearDuplicateIndex).addAfterCommit(eq(CONSULTATION_ID), any(int[].class), eq(5L));
+    }
+
+    @Test
+    void createComment_shouldHoldForReviewWhenProfanityFilterMatches() {
+        // GIVEN
+        CommentCreateDTO createDTO = new CommentCreateDTO("Wulgarna treść");
+
+        when(userService.getLoggedUser()).thenReturn(testUser);
+        when(preConsultationRepository.findByIdOrThrow(CONSULTATION_ID)).thenReturn(testConsultation);
+        when(profanityFilter.containsProfanity("Wulgarna treść")).thenReturn(true);
+        when(commentRepository.save(any(Comment.class))).thenReturn(testComment);
+        when(commentMapper.toDto(any(Comment.class))).thenReturn(testCommentDTO);
 
-        lenient().when(commentRepository.save(any(Comment.class))).thenReturn(testComment);
-        lenient().when(commentMapper.toDto(any(Comment.class))).thenReturn(testCommentDTO);
         // WHEN
         commentService.createComment(CONSULTATION_ID, createDTO);
 
         // THEN
         verify(commentRepository).save(argThat(comment ->
-                !comment.isBlocked()
+                comment.isBlocked() && comment.getModerationStatus() == ModerationStatus.NEEDS_REVIEW
         ));
+        verify(preConsultationRepository).adjustCounters(CONSULTATION_ID, 0, 1, 0);
     }
 
     @Test
     void createCommentAnalog_shouldCreateUserAndComment() {
         // GIVEN
-        CommentCreateAnalogDTO createDTO = new CommentCreateAnalogDTO("Anonim", "Anonimowski", "Dobra treść");
+        CommentCreateAnalogDTO createDTO = new CommentCreateAnalogDTO("Anonim", "Anonimowski", "Dobra treść", null);
         User analogUser = User.builder().id(999L).build();
 
-        when(userService.createAnalogUser(anyString(), anyString())).thenReturn(analogUser);
+        when(userService.resolveAnalogUser(anyString(), anyString(), isNull())).thenReturn(analogUser);
 
         when(preConsultationRepository.findByIdOrThrow(CONSULTATION_ID)).thenReturn(testConsultation);
-        when(aiService.validateComment(anyString())).thenReturn("OK");
 
         when(commentRepository.save(any(Comment.class))).thenReturn(testComment);
         when(commentMapper.toDto(any(Comment.class))).thenReturn(testCommentDTO);
@@ -144,90 +198,190 @@ class CommentServiceTest {
     }
 
     @Test
-    void unblockComment_shouldSetBlockedToFalse() {
+    void unblockComment_shouldApproveBlockedCommentWithConditionalUpdate() {
         // GIVEN
-        testComment.setBlocked(true);
-        Comment unblockedComment = testComment;
-        unblockedComment.setBlocked(false);
+        when(commentRepository.findByIdOrThrow(COMMENT_ID)).thenReturn(testComment);
+        when(commentRepository.updateBlockStatus(COMMENT_ID, true, false, ModerationStatus.APPROVED)).thenReturn(1);
+        when(commentMapper.toDto(any(Comment.class))).thenReturn(testCommentDTO);
+
+        // WHEN
+        commentService.unblockComment(COMMENT_ID);
 
+        // THEN
+        verify(commentRepository, never()).save(any(Comment.class));
+        verify(preConsultationRepository).adjustCounters(CONSULTATION_ID, 1, -1, 0);
+        verify(eventPublisher).publishEvent(new CommentEvent(CONSULTATION_ID, COMMENT_ID, CommentEvent.Type.UNBLOCKED));
+    }
+
+    @Test
+    void unblockComment_shouldLeaveCountersAloneWhenCommentIsNoLongerBlocked() {
+        // GIVEN
         when(commentRepository.findByIdOrThrow(COMMENT_ID)).thenReturn(testComment);
-        when(commentRepository.save(any(Comment.class))).thenReturn(unblockedComment);
+        when(commentRepository.updateBlockStatus(COMMENT_ID, true, false, ModerationStatus.APPROVED)).thenReturn(0);
         when(commentMapper.toDto(any(Comment.class))).thenReturn(testCommentDTO);
 
         // WHEN
         commentService.unblockComment(COMMENT_ID);
 
         // THEN
-        verify(commentRepository).save(argThat(comment ->
-                !comment.isBlocked()
-        ));
+        verify(commentRepository).updateBlockStatus(COMMENT_ID, false, false, ModerationStatus.APPROVED);
+        verify(preConsultationRepository, never()).adjustCounters(anyLong(), anyLong(), anyLong(), anyLong());
+        verify(eventPublisher, never()).publishEvent(any(CommentEvent.class));
     }
 
     @Test
-    void getActiveCommentsByConsultationId_shouldReturnActiveComments() {
+    void toggleBlockStatus_shouldAdjustCountersOnlyOnce() {
         // GIVEN
-        Comment activeComment = new Comment();
-        activeComment.setBlocked(false);
-        List<Comment> activeComments = Arrays.asList(activeComment, new Comment());
+        when(commentRepository.findByIdOrThrow(COMMENT_ID)).thenReturn(testComment);
+        when(commentRepository.updateBlockStatus(COMMENT_ID, false, true, ModerationStatus.REJECTED))
+                .thenReturn(1)
+                .thenReturn(0);
+        when(commentMapper.toDto(any(Comment.class))).thenReturn(testCommentDTO);
 
-        when(commentRepository.findAllByPreConsultationIdAndBlockedFalse(CONSULTATION_ID)).thenReturn(activeComments);
+        // WHEN
+        commentService.toggleBlockStatus(COMMENT_ID);
+        commentService.toggleBlockStatus(COMMENT_ID);
+
+        // THEN
+        verify(preConsultationRepository, times(1)).adjustCounters(CONSULTATION_ID, -1, 1, 0);
+        verify(commentRepository).updateBlockStatus(COMMENT_ID, true, true, ModerationStatus.REJECTED);
+        verify(commentRepository, never()).save(any(Comment.class));
+    }
+
+    @Test
+    void getActiveCommentsPage_shouldReturnFirstPageWithNextCursor() {
+        // GIVEN
+        Comment first = commentAt(1L, LocalDateTime.of(2025, 12, 1, 10, 0));
+        Comment second = commentAt(2L, LocalDateTime.of(2025, 12, 1, 11, 0));
+        Comment third = commentAt(3L, LocalDateTime.of(2025, 12, 1, 12, 0));
+
+        when(userService.getLoggedUser()).thenReturn(testUser);
+        when(commentRepository.findActivePage(CONSULTATION_ID, Limit.of(3)))
+                .thenReturn(Arrays.asList(first, second, third));
         when(commentMapper.toDto(any(Comment.class))).thenReturn(testCommentDTO);
 
         // WHEN
-        List<CommentDTO> result = commentService.getActiveCommentsByConsultationId(CONSULTATION_ID);
+        CommentPageDTO result = commentService.getActiveCommentsPage(CONSULTATION_ID, null, 2);
 
         // THEN
-        assertEquals(2, result.size());
-        verify(commentRepository).findAllByPreConsultationIdAndBlockedFalse(CONSULTATION_ID);
+        assertEquals(2, result.comments().size());
+        assertEquals(CommentCursor.of(second), CommentCursor.decode(result.nextCursor()));
         verify(commentMapper, times(2)).toDto(any(Comment.class));
     }
 
     @Test
-    void getAllBlockedCommentsSorted_shouldReturnBlockedComments() {
+    void getActiveCommentsPage_shouldContinueAfterCursorAndEndWithoutNextCursor() {
+        // GIVEN
+        LocalDateTime cursorDate = LocalDateTime.of(2025, 12, 1, 11, 0);
+        String cursor = new CommentCursor(cursorDate, 2L).encode();
+        Comment last = commentAt(3L, LocalDateTime.of(2025, 12, 1, 12, 0));
+
+        when(userService.getLoggedUser()).thenReturn(testUser);
+        when(commentRepository.findActivePageAfter(CONSULTATION_ID, cursorDate, 2L, Limit.of(3)))
+                .thenReturn(List.of(last));
+        when(commentMapper.toDto(last)).thenReturn(testCommentDTO);
+
+        // WHEN
+        CommentPageDTO result = commentService.getActiveCommentsPage(CONSULTATION_ID, cursor, 2);
+
+        // THEN
+        assertEquals(List.of(testCommentDTO), result.comments());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void getActiveCommentsPage_shouldTakeApprovalsFromIndex() {
+        // GIVEN
+        when(userService.getLoggedUser()).thenReturn(testUser);
+        when(commentRepository.findActivePage(CONSULTATION_ID, Limit.of(51))).thenReturn(List.of(testComment));
+        when(commentMapper.toDto(testComment)).thenReturn(testCommentDTO);
+        when(approvalIndex.count(COMMENT_ID)).thenReturn(3L);
+        when(approvalIndex.isApprovedBy(COMMENT_ID, USER_ID)).thenReturn(true);
+
+        // WHEN
+        CommentPageDTO result = commentService.getActiveCommentsPage(CONSULTATION_ID, null, null);
+
+        // THEN
+        CommentDTO comment = result.comments().getFirst();
+        assertEquals(3L, comment.approvesNumber());
+        assertTrue(comment.approvedByMe());
+    }
+
+    @Test
+    void getBlockedComments_shouldReturnRequestedPageWithCappedSize() {
         // GIVEN
         Comment blocked1 = new Comment();
         blocked1.setBlocked(true);
         List<Comment> blockedComments = Arrays.asList(blocked1, new Comment());
 
-        when(commentRepository.findAllByBlockedTrueOrderByDateCreatedDesc()).thenReturn(blockedComments);
+        when(commentRepository.findBlockedPage(PageRequest.of(1, 200)))
+                .thenReturn(new PageImpl<>(blockedComments, PageRequest.of(1, 200), 202));
         when(commentMapper.toDto(any(Comment.class))).thenReturn(testCommentDTO);
 
         // WHEN
-        List<CommentDTO> result = commentService.getAllBlockedCommentsSorted();
+        PageDTO<CommentDTO> result = commentService.getBlockedComments(1, 1_000);
+
+        // THEN
+        assertEquals(2, result.content().size());
+        assertEquals(202, result.totalElements());
+    }
+
+    @Test
+    void toggleApprove_shouldIncrementCountersWhenApprovalAdded() {
+        // GIVEN
+        when(userService.getLoggedUser()).thenReturn(testUser);
+        when(commentRepository.findByIdOrThrow(COMMENT_ID)).thenReturn(testComment);
+        when(commentApprovalRepository.toggle(COMMENT_ID, USER_ID)).thenReturn(1L);
+        when(commentMapper.toDto(testComment)).thenReturn(testCommentDTO);
+
+        // WHEN
+        CommentDTO result = commentService.toggleApprove(COMMENT_ID);
 
         // THEN
-        assertEquals(2, result.size());
-        verify(commentRepository).findAllByBlockedTrueOrderByDateCreatedDesc();
+        verify(commentRepository).adjustApprovalCount(COMMENT_ID, 1);
+        verify(preConsultationRepository).adjustCounters(CONSULTATION_ID, 0, 0, 1);
+        verify(eventPublisher).publishEvent(new ApprovalToggledEvent(CONSULTATION_ID, COMMENT_ID, USER_ID, true));
+        verify(commentRepository, never()).save(any(Comment.class));
+        assertTrue(result.approvedByMe());
     }
 
     @Test
-    void toggleApprove_shouldAddApproveIfNotFound() {
+    void toggleApprove_shouldDecrementCountersWhenApprovalRemoved() {
         // GIVEN
         when(userService.getLoggedUser()).thenReturn(testUser);
         when(commentRepository.findByIdOrThrow(COMMENT_ID)).thenReturn(testComment);
-        testComment.setApproves(new HashSet<>(Collections.singletonList(200L)));
+        when(commentApprovalRepository.toggle(COMMENT_ID, USER_ID)).thenReturn(-1L);
+        when(commentMapper.toDto(testComment)).thenReturn(testCommentDTO);
+
         // WHEN
         commentService.toggleApprove(COMMENT_ID);
 
         // THEN
-        verify(commentRepository).save(argThat(comment ->
-                comment.getApproves().contains(USER_ID) && comment.getApproves().size() == 2
-        ));
+        verify(commentRepository).adjustApprovalCount(COMMENT_ID, -1);
+        verify(preConsultationRepository).adjustCounters(CONSULTATION_ID, 0, 0, -1);
+        verify(eventPublisher).publishEvent(new ApprovalToggledEvent(CONSULTATION_ID, COMMENT_ID, USER_ID, false));
     }
 
     @Test
-    void toggleApprove_shouldRemoveApproveIfFound() {
+    void toggleApprove_shouldLeaveCountersWhenConcurrentToggleWon() {
         // GIVEN
         when(userService.getLoggedUser()).thenReturn(testUser);
         when(commentRepository.findByIdOrThrow(COMMENT_ID)).thenReturn(testComment);
-        testComment.setApproves(new HashSet<>(Collections.singletonList(USER_ID)));
+        when(commentApprovalRepository.toggle(COMMENT_ID, USER_ID)).thenReturn(0L);
+        when(commentMapper.toDto(testComment)).thenReturn(testCommentDTO);
 
         // WHEN
         commentService.toggleApprove(COMMENT_ID);
 
         // THEN
-        verify(commentRepository).save(argThat(comment ->
-                !comment.getApproves().contains(USER_ID) && comment.getApproves().isEmpty()
-        ));
+        verify(commentRepository, never()).adjustApprovalCount(anyLong(), anyLong());
+        verifyNoInteractions(preConsultationRepository);
+    }
+
+    private Comment commentAt(Long id, LocalDateTime dateCreated) {
+        Comment comment = new Comment();
+        comment.setId(id);
+        comment.setDateCreated(dateCreated);
+        return comment;
     }
 }
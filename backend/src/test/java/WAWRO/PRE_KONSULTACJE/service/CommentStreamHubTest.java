@@ -0,0 +1,119 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.config.CommentProperties;
+import WAWRO.PRE_KONSULTACJE.event.CommentEvent;
+import WAWRO.PRE_KONSULTACJE.mapper.CommentMapper;
+import WAWRO.PRE_KONSULTACJE.model.dto.CommentDTO;
+import WAWRO.PRE_KONSULTACJE.model.entity.Comment;
+import WAWRO.PRE_KONSULTACJE.repository.CommentRepository;
+import WAWRO.PRE_KONSULTACJE.repository.PreConsultationRepository;
+import WAWRO.PRE_KONSULTACJE.utils.ApprovalIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CommentStreamHubTest {
+
+    private static final Long CONSULTATION_ID = 1L;
+
+    @Mock
+    private CommentRepository commentRepository;
+    @Mock
+    private PreConsultationRepository preConsultationRepository;
+    @Mock
+    private CommentMapper commentMapper;
+    @Mock
+    private ApprovalIndex approvalIndex;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CommentStreamHub hub;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        hub = new CommentStreamHub(commentRepository, preConsultationRepository, commentMapper, approvalIndex,
+                new CommentProperties(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    @Test
+    void flushCommentChanges_shouldLoadBufferedCommentsInOneQuery() throws InterruptedException {
+        // GIVEN
+        hub.subscribe(CONSULTATION_ID);
+        when(commentRepository.findWithAuthorByIdIn(any())).thenReturn(List.of(
+                comment(11L, false), comment(12L, false), comment(13L, true), comment(14L, true)));
+        when(commentMapper.toDto(any(Comment.class))).thenAnswer(invocation -> dto(invocation.getArgument(0)));
+
+        // WHEN
+        hub.onCommentEvent(new CommentEvent(CONSULTATION_ID, 11L, CommentEvent.Type.CREATED));
+        hub.onCommentEvent(new CommentEvent(CONSULTATION_ID, 12L, CommentEvent.Type.CREATED));
+        hub.onCommentEvent(new CommentEvent(CONSULTATION_ID, 13L, CommentEvent.Type.CREATED));
+        hub.onCommentEvent(new CommentEvent(CONSULTATION_ID, 13L, CommentEvent.Type.MODERATED));
+        hub.onCommentEvent(new CommentEvent(CONSULTATION_ID, 14L, CommentEvent.Type.MODERATED));
+        verifyNoInteractions(commentRepository);
+        hub.flushCommentChanges();
+
+        // THEN
+        verify(commentRepository).findWithAuthorByIdIn(argThat((Collection<Long> ids) ->
+                ids.size() == 4 && ids.containsAll(List.of(11L, 12L, 13L, 14L))));
+        verify(commentRepository, never()).findById(any());
+        verify(commentRepository, never()).findWithAuthorById(any());
+        // Two comments created and still visible, one existing comment hidden by moderation; 13 was never shown.
+        assertEquals(3, awaitSentEvents(3));
+        verify(commentMapper, times(2)).toDto(any(Comment.class));
+    }
+
+    @Test
+    void onCommentEvent_shouldIgnoreConsultationsWithoutSubscribers() {
+        // WHEN
+        hub.onCommentEvent(new CommentEvent(CONSULTATION_ID, 11L, CommentEvent.Type.CREATED));
+        hub.onCommentEvent(new CommentEvent(CONSULTATION_ID, 12L, CommentEvent.Type.BLOCKED));
+        hub.flushCommentChanges();
+
+        // THEN
+        verifyNoInteractions(commentRepository, commentMapper);
+        assertEquals(0, hub.subscriberCount());
+    }
+
+    private double awaitSentEvents(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        double sent;
+        while ((sent = meterRegistry.counter("comments.stream.events.sent").count()) < expected
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        // Give a wrongly sent extra event the chance to show up.
+        Thread.sleep(50);
+        return meterRegistry.counter("comments.stream.events.sent").count();
+    }
+
+    private static Comment comment(Long id, boolean blocked) {
+        Comment comment = new Comment();
+        comment.setId(id);
+        comment.setBlocked(blocked);
+        comment.setDateCreated(LocalDateTime.of(2025, 12, 1, 10, 0));
+        return comment;
+    }
+
+    private static CommentDTO dto(Comment comment) {
+        return new CommentDTO(comment.getId(), "Treść", comment.getDateCreated(), 0L, null, comment.isBlocked(), false);
+    }
+}
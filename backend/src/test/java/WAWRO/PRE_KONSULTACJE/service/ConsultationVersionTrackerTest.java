@@ -0,0 +1,150 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.config.ConsultationProperties;
+import WAWRO.PRE_KONSULTACJE.event.ApprovalToggledEvent;
+import WAWRO.PRE_KONSULTACJE.event.CommentEvent;
+import WAWRO.PRE_KONSULTACJE.event.ConsultationEvent;
+import WAWRO.PRE_KONSULTACJE.model.dto.PreConsultationDTO;
+import WAWRO.PRE_KONSULTACJE.utils.ApprovalIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class ConsultationVersionTrackerTest {
+
+    private static final Long CONSULTATION_ID = 1L;
+
+    private ConsultationDetailCache detailCache;
+    private ApprovalIndex approvalIndex;
+    private ConsultationVersionTracker versionTracker;
+
+    @BeforeEach
+    void setUp() {
+        detailCache = spy(new ConsultationDetailCache(new ConsultationProperties(),
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry()));
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource();
+        approvalIndex = spy(new ApprovalIndex(dataSource, new DataSourceTransactionManager(dataSource),
+                new SimpleMeterRegistry()));
+        versionTracker = new ConsultationVersionTracker(detailCache, approvalIndex);
+    }
+
+    @Test
+    void etag_shouldBeStableUntilConsultationChanges() {
+        // GIVEN
+        String before = versionTracker.etag(1L);
+
+        // WHEN
+        String again = versionTracker.etag(1L);
+        versionTracker.onCommentEvent(new CommentEvent(1L, 10L, CommentEvent.Type.CREATED));
+
+        // THEN
+        assertEquals(before, again);
+        assertNotEquals(before, versionTracker.etag(1L));
+        assertTrue(before.startsWith("\"") && before.endsWith("\""));
+    }
+
+    @Test
+    void etag_shouldOnlyChangeForAffectedConsultation() {
+        // GIVEN
+        String first = versionTracker.etag(1L);
+        String second = versionTracker.etag(2L);
+
+        // WHEN
+        versionTracker.onApprovalToggled(new ApprovalToggledEvent(2L, 20L, 100L, true));
+        versionTracker.onConsultationEvent(new ConsultationEvent(2L, ConsultationEvent.Type.UPDATED));
+
+        // THEN
+        assertEquals(first, versionTracker.etag(1L));
+        assertNotEquals(second, versionTracker.etag(2L));
+    }
+
+    @Test
+    void onConsultationEvent_shouldNeverServeCachedDetailUnderNewEtag() {
+        // GIVEN
+        PreConsultationDTO stale = detail("Przed zmianą");
+        PreConsultationDTO fresh = detail("Po zmianie");
+        detailCache.get(CONSULTATION_ID, id -> stale);
+        String oldEtag = versionTracker.etag(CONSULTATION_ID);
+        // A GET right before and right after the cache drop, i.e. anywhere inside the listener.
+        List<Response> responses = new ArrayList<>();
+        doAnswer(invocation -> {
+            responses.add(get(fresh));
+            invocation.callRealMethod();
+            responses.add(get(fresh));
+            return null;
+        }).when(detailCache).invalidate(anyLong());
+
+        // WHEN
+        versionTracker.onConsultationEvent(new ConsultationEvent(CONSULTATION_ID, ConsultationEvent.Type.UPDATED));
+
+        // THEN
+        String newEtag = versionTracker.etag(CONSULTATION_ID);
+        assertNotEquals(oldEtag, newEtag);
+        assertEquals(2, responses.size());
+        responses.forEach(response -> assertFalse(response.etag().equals(newEtag) && response.detail() == stale,
+                "stale detail served under the new ETag"));
+        assertSame(fresh, get(fresh).detail());
+    }
+
+    @Test
+    void onApprovalToggled_shouldNeverServeOldApprovalsUnderNewEtag() {
+        // GIVEN
+        Long commentId = 10L;
+        Long userId = 100L;
+        String oldEtag = versionTracker.etag(CONSULTATION_ID);
+        // A comments-page GET right before and right after the index update.
+        List<ApprovalResponse> responses = new ArrayList<>();
+        doAnswer(invocation -> {
+            responses.add(getApprovals(commentId, userId));
+            invocation.callRealMethod();
+            responses.add(getApprovals(commentId, userId));
+            return null;
+        }).when(approvalIndex).onApprovalToggled(any());
+
+        // WHEN
+        versionTracker.onApprovalToggled(new ApprovalToggledEvent(CONSULTATION_ID, commentId, userId, true));
+
+        // THEN
+        String newEtag = versionTracker.etag(CONSULTATION_ID);
+        assertNotEquals(oldEtag, newEtag);
+        assertEquals(2, responses.size());
+        responses.forEach(response -> assertFalse(response.etag().equals(newEtag) && !response.approvedByMe(),
+                "old approvals served under the new ETag"));
+        assertEquals(new ApprovalResponse(newEtag, 1, true), getApprovals(commentId, userId));
+    }
+
+    // What CommentController does: read the ETag first, then decorate the page from the index.
+    private ApprovalResponse getApprovals(Long commentId, Long userId) {
+        String etag = versionTracker.etag(CONSULTATION_ID);
+        return new ApprovalResponse(etag, approvalIndex.count(commentId), approvalIndex.isApprovedBy(commentId, userId));
+    }
+
+    // What PreConsultationController does: read the ETag first, then the (cached) detail.
+    private Response get(PreConsultationDTO loaded) {
+        String etag = versionTracker.etag(CONSULTATION_ID);
+        return new Response(etag, detailCache.get(CONSULTATION_ID, id -> loaded));
+    }
+
+    private static PreConsultationDTO detail(String description) {
+        return new PreConsultationDTO(CONSULTATION_ID, "Temat", description, true,
+                LocalDateTime.of(2025, 12, 1, 10, 0), null, List.of());
+    }
+
+    private record Response(String etag, PreConsultationDTO detail) {
+    }
+
+    private record ApprovalResponse(String etag, long count, boolean approvedByMe) {
+    }
+}
@@ -0,0 +1,115 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.event.ConsultationEvent;
+import WAWRO.PRE_KONSULTACJE.model.dto.CounterRepairReportDTO;
+import WAWRO.PRE_KONSULTACJE.model.projection.CounterDriftView;
+import WAWRO.PRE_KONSULTACJE.repository.CommentRepository;
+import WAWRO.PRE_KONSULTACJE.repository.PreConsultationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CounterRepairServiceTest {
+
+    @Mock
+    private PreConsultationRepository preConsultationRepository;
+    @Mock
+    private CommentRepository commentRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CounterRepairService counterRepairService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        counterRepairService = new CounterRepairService(preConsultationRepository, commentRepository, eventPublisher,
+                meterRegistry);
+    }
+
+    @Test
+    void repair_shouldPublishOneEventPerRepairedConsultation() {
+        // GIVEN
+        // Two comments of consultation 3 had drifted approval counts, consultation 5 its own counters.
+        when(commentRepository.repairApprovalCounts()).thenReturn(List.of(3L, 3L));
+        when(preConsultationRepository.findCounterDrift()).thenReturn(List.of(drift(5L)));
+        when(preConsultationRepository.recomputeCounters(List.of(5L))).thenReturn(1);
+
+        // WHEN
+        CounterRepairReportDTO report = counterRepairService.repair();
+
+        // THEN
+        assertEquals(2, report.commentsRepaired());
+        assertEquals(1, report.consultationsRepaired());
+        assertEquals(3, meterRegistry.counter("preconsultation.counters.drift").count());
+        verify(eventPublisher).publishEvent(new ConsultationEvent(3L, ConsultationEvent.Type.UPDATED));
+        verify(eventPublisher).publishEvent(new ConsultationEvent(5L, ConsultationEvent.Type.UPDATED));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void repair_shouldPublishNothingWithoutDrift() {
+        // GIVEN
+        when(commentRepository.repairApprovalCounts()).thenReturn(List.of());
+        when(preConsultationRepository.findCounterDrift()).thenReturn(List.of());
+
+        // WHEN
+        CounterRepairReportDTO report = counterRepairService.repair();
+
+        // THEN
+        assertEquals(0, report.consultationsRepaired());
+        verify(preConsultationRepository, never()).recomputeCounters(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    private static CounterDriftView drift(Long consultationId) {
+        return new CounterDriftView() {
+            @Override
+            public Long getId() {
+                return consultationId;
+            }
+
+            @Override
+            public long getStoredActive() {
+                return 4;
+            }
+
+            @Override
+            public long getActualActive() {
+                return 3;
+            }
+
+            @Override
+            public long getStoredBlocked() {
+                return 0;
+            }
+
+            @Override
+            public long getActualBlocked() {
+                return 1;
+            }
+
+            @Override
+            public long getStoredApprovals() {
+                return 0;
+            }
+
+            @Override
+            public long getActualApprovals() {
+                return 0;
+            }
+        };
+    }
+}
@@ -1,26 +1,41 @@
 package WAWRO.PRE_KONSULTACJE.service;
 
+import WAWRO.PRE_KONSULTACJE.config.CommentProperties;
+import WAWRO.PRE_KONSULTACJE.event.ConsultationEvent;
 import WAWRO.PRE_KONSULTACJE.mapper.PreConsultationMapper;
 import WAWRO.PRE_KONSULTACJE.model.dto.AuthorDTO;
 import WAWRO.PRE_KONSULTACJE.model.dto.CommentDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.PageDTO;
 import WAWRO.PRE_KONSULTACJE.model.dto.PreConsultationCreateDTO;
 import WAWRO.PRE_KONSULTACJE.model.dto.PreConsultationDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.PreConsultationSummaryDTO;
+import WAWRO.PRE_KONSULTACJE.model.dto.SummaryDTO;
 import WAWRO.PRE_KONSULTACJE.model.entity.PreConsultation;
 import WAWRO.PRE_KONSULTACJE.model.entity.User;
+import WAWRO.PRE_KONSULTACJE.model.enums.SummaryType;
+import WAWRO.PRE_KONSULTACJE.model.projection.PreConsultationSummaryView;
 import WAWRO.PRE_KONSULTACJE.repository.PreConsultationRepository;
+import WAWRO.PRE_KONSULTACJE.utils.AiService;
 import jakarta.validation.ValidationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -34,6 +49,14 @@ class PreConsultationServiceTest {
     private PreConsultationMapper consultationMapper;
     @Mock
     private UserService userService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private ConsultationDetailCache consultationDetailCache;
+    @Mock
+    private AiService aiService;
+    @Spy
+    private CommentProperties commentProperties = new CommentProperties();
 
     @InjectMocks
     private PreConsultationService consultationService;
@@ -101,7 +124,8 @@ class PreConsultationServiceTest {
     @Test
     void getConsultationById_shouldReturnDTOWhenFound() {
         // GIVEN
-        when(consultationRepository.findByIdOrThrow(CONSULTATION_ID)).thenReturn(testConsultation);
+        givenCacheMiss();
+        when(consultationRepository.findDetailByIdOrThrow(CONSULTATION_ID)).thenReturn(testConsultation);
         when(consultationMapper.toDto(testConsultation)).thenReturn(testConsultationDTO);
 
         // WHEN
@@ -109,47 +133,74 @@ class PreConsultationServiceTest {
 
         // THEN
         assertEquals(testConsultationDTO, result);
-        verify(consultationRepository, times(1)).findByIdOrThrow(CONSULTATION_ID);
+        verify(consultationRepository, times(1)).findDetailByIdOrThrow(CONSULTATION_ID);
     }
 
     @Test
     void getConsultationById_shouldThrowExceptionWhenNotFound() {
         // GIVEN
-        when(consultationRepository.findByIdOrThrow(CONSULTATION_ID))
+        givenCacheMiss();
+        when(consultationRepository.findDetailByIdOrThrow(CONSULTATION_ID))
                 .thenThrow(new ValidationException("Consultation not found"));
 
         // WHEN & THEN
         assertThrows(ValidationException.class, () -> {
             consultationService.getConsultationById(CONSULTATION_ID);
         });
-        verify(consultationRepository, times(1)).findByIdOrThrow(CONSULTATION_ID);
+        verify(consultationRepository, times(1)).findDetailByIdOrThrow(CONSULTATION_ID);
+    }
+
+    @Test
+    void getConsultationById_shouldNotTouchRepositoryOnCacheHit() {
+        // GIVEN
+        when(consultationDetailCache.get(eq(CONSULTATION_ID), any())).thenReturn(testConsultationDTO);
+
+        // WHEN
+        PreConsultationDTO result = consultationService.getConsultationById(CONSULTATION_ID);
+
+        // THEN
+        assertEquals(testConsultationDTO, result);
+        verifyNoInteractions(consultationRepository, consultationMapper);
     }
 
     @Test
-    void getAllConsultations_shouldReturnSortedActiveList() {
+    void getAllConsultations_shouldReturnPageOfSummaries() {
         // GIVEN
-        PreConsultation cons1 = new PreConsultation();
-        PreConsultation cons2 = new PreConsultation();
-        List<PreConsultation> consultations = Arrays.asList(cons1, cons2);
+        PreConsultationSummaryView summary1 = mock(PreConsultationSummaryView.class);
+        PreConsultationSummaryView summary2 = mock(PreConsultationSummaryView.class);
+        PageRequest pageRequest = PageRequest.of(0, 2);
 
         AuthorDTO authorDTO = new AuthorDTO("Test", "User");
-        List<CommentDTO> emptyComments = Collections.emptyList();
+        PreConsultationSummaryDTO dto1 = new PreConsultationSummaryDTO(1L, "S1", authorDTO, 7, 3);
+        PreConsultationSummaryDTO dto2 = new PreConsultationSummaryDTO(2L, "S2", authorDTO, 2, 0);
 
-        PreConsultationDTO dto1 = new PreConsultationDTO(1L, "S1", "D1", true, LocalDateTime.now(), authorDTO, emptyComments);
-        PreConsultationDTO dto2 = new PreConsultationDTO(2L, "S2", "D2", true, LocalDateTime.now(), authorDTO, emptyComments);
+        when(consultationRepository.findActiveSummaries(pageRequest))
+                .thenReturn(new PageImpl<>(Arrays.asList(summary1, summary2), pageRequest, 5));
+        when(consultationMapper.toSummaryDto(summary1)).thenReturn(dto1);
+        when(consultationMapper.toSummaryDto(summary2)).thenReturn(dto2);
 
-        Sort expectedSort = Sort.by(Sort.Direction.DESC, "comments");
+        // WHEN
+        PageDTO<PreConsultationSummaryDTO> result = consultationService.getAllConsultations(0, 2);
 
-        when(consultationRepository.findAllByActiveTrue(expectedSort)).thenReturn(consultations);
-        when(consultationMapper.toDto(cons1)).thenReturn(dto1);
-        when(consultationMapper.toDto(cons2)).thenReturn(dto2);
+        // THEN
+        assertEquals(List.of(dto1, dto2), result.content());
+        assertEquals(5, result.totalElements());
+        assertEquals(3, result.totalPages());
+        verify(consultationRepository, never()).findAll();
+    }
+
+    @Test
+    void getAllConsultations_shouldClampInvalidPageAndSize() {
+        // GIVEN
+        when(consultationRepository.findActiveSummaries(any(PageRequest.class))).thenReturn(Page.empty());
 
         // WHEN
-        List<PreConsultationDTO> result = consultationService.getAllConsultations();
+        consultationService.getAllConsultations(-1, 0);
+        consultationService.getAllConsultations(0, 1_000_000);
 
         // THEN
-        assertEquals(2, result.size());
-        verify(consultationRepository, times(1)).findAllByActiveTrue(expectedSort);
+        verify(consultationRepository).findActiveSummaries(PageRequest.of(0, commentProperties.getDefaultPageSize()));
+        verify(consultationRepository).findActiveSummaries(PageRequest.of(0, commentProperties.getMaxPageSize()));
     }
 
     @Test
@@ -171,6 +222,7 @@ class PreConsultationServiceTest {
                         consultation.getDescription().equals(newDescription) &&
                         consultation.getId().equals(CONSULTATION_ID)
         ));
+        verify(eventPublisher).publishEvent(new ConsultationEvent(CONSULTATION_ID, ConsultationEvent.Type.UPDATED));
     }
 
     @Test
@@ -186,5 +238,24 @@ class PreConsultationServiceTest {
         verify(consultationRepository).save(argThat(consultation ->
                 !consultation.isActive()
         ));
+        verify(eventPublisher).publishEvent(new ConsultationEvent(CONSULTATION_ID, ConsultationEvent.Type.DEACTIVATED));
+    }
+
+    @Test
+    void summarize_shouldSendDescriptionToAiServiceWithoutBlocking() {
+        // GIVEN
+        when(consultationDetailCache.get(eq(CONSULTATION_ID), any())).thenReturn(testConsultationDTO);
+        when(aiService.summarize(SummaryType.UST, "Stary Opis")).thenReturn(Mono.just("Streszczenie"));
+
+        // WHEN
+        CompletableFuture<SummaryDTO> result = consultationService.summarize(CONSULTATION_ID, SummaryType.UST);
+
+        // THEN
+        assertEquals(new SummaryDTO("Streszczenie"), result.join());
+    }
+
+    private void givenCacheMiss() {
+        when(consultationDetailCache.get(eq(CONSULTATION_ID), any())).thenAnswer(invocation ->
+                invocation.<Function<Long, PreConsultationDTO>>getArgument(1).apply(CONSULTATION_ID));
     }
-}
\ No newline at end of file
+}
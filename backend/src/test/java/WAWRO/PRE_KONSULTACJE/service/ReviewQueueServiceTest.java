@@ -0,0 +1,136 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.config.ModerationProperties;
+import WAWRO.PRE_KONSULTACJE.event.CommentEvent;
+import WAWRO.PRE_KONSULTACJE.mapper.CommentMapper;
+import WAWRO.PRE_KONSULTACJE.model.dto.ReviewLeaseDTO;
+import WAWRO.PRE_KONSULTACJE.model.entity.Comment;
+import WAWRO.PRE_KONSULTACJE.model.entity.PreConsultation;
+import WAWRO.PRE_KONSULTACJE.model.enums.ModerationStatus;
+import WAWRO.PRE_KONSULTACJE.model.enums.Role;
+import WAWRO.PRE_KONSULTACJE.repository.CommentRepository;
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewQueueServiceTest {
+
+    private static final Long MODERATOR_ID = 7L;
+    private static final Long COMMENT_ID = 10L;
+    private static final Long CONSULTATION_ID = 1L;
+
+    @Mock
+    private CommentRepository commentRepository;
+    @Mock
+    private CommentService commentService;
+    @Mock
+    private CommentMapper commentMapper;
+    @Mock
+    private UserService userService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ReviewQueueService reviewQueueService;
+    private Comment blockedComment;
+
+    @BeforeEach
+    void setUp() {
+        reviewQueueService = new ReviewQueueService(commentRepository, commentService, commentMapper, userService,
+                new ModerationProperties(), eventPublisher);
+        lenient().when(userService.getCurrentUser())
+                .thenReturn(new CurrentUser(MODERATOR_ID, "moderator@test.pl", "Anna", "Nowak", Role.MODERATOR));
+
+        PreConsultation consultation = new PreConsultation();
+        consultation.setId(CONSULTATION_ID);
+        blockedComment = new Comment();
+        blockedComment.setId(COMMENT_ID);
+        blockedComment.setPreConsultation(consultation);
+        blockedComment.setBlocked(true);
+        blockedComment.setModerationStatus(ModerationStatus.NEEDS_REVIEW);
+    }
+
+    @Test
+    void claim_shouldCapBatchSizeAndSkipLoadingWhenQueueIsEmpty() {
+        // GIVEN
+        when(commentRepository.claimForReview(eq(MODERATOR_ID), any(), any(), eq(100))).thenReturn(List.of());
+
+        // WHEN
+        ReviewLeaseDTO lease = reviewQueueService.claim(5_000);
+
+        // THEN
+        assertTrue(lease.comments().isEmpty());
+        assertTrue(lease.leaseExpiresAt().isAfter(LocalDateTime.now().plusMinutes(9)));
+        verify(commentRepository, never()).findWithAuthorByIdIn(any());
+    }
+
+    @Test
+    void reject_shouldConfirmBlockWithConditionalUpdateAndPublishEvent() {
+        // GIVEN
+        blockedComment.setLeasedBy(MODERATOR_ID);
+        blockedComment.setLeaseExpiresAt(LocalDateTime.now().plusMinutes(5));
+        when(commentRepository.findByIdOrThrow(COMMENT_ID)).thenReturn(blockedComment);
+        when(commentRepository.updateBlockedModerationStatus(COMMENT_ID, ModerationStatus.REJECTED)).thenReturn(1);
+
+        // WHEN
+        reviewQueueService.reject(COMMENT_ID);
+
+        // THEN
+        verify(commentRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(new CommentEvent(CONSULTATION_ID, COMMENT_ID, CommentEvent.Type.MODERATED));
+    }
+
+    @Test
+    void reject_shouldNotReblockCommentUnblockedByColleagueInTheMeantime() {
+        // GIVEN
+        Comment unblocked = new Comment();
+        unblocked.setId(COMMENT_ID);
+        unblocked.setBlocked(false);
+        unblocked.setModerationStatus(ModerationStatus.APPROVED);
+        when(commentRepository.findByIdOrThrow(COMMENT_ID)).thenReturn(blockedComment, unblocked);
+        when(commentRepository.updateBlockedModerationStatus(COMMENT_ID, ModerationStatus.REJECTED)).thenReturn(0);
+
+        // WHEN / THEN
+        assertThrows(ValidationException.class, () -> reviewQueueService.reject(COMMENT_ID));
+        verify(commentRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void approve_shouldRefuseCommentLeasedByAnotherModerator() {
+        // GIVEN
+        blockedComment.setLeasedBy(8L);
+        blockedComment.setLeaseExpiresAt(LocalDateTime.now().plusMinutes(5));
+        when(commentRepository.findByIdOrThrow(COMMENT_ID)).thenReturn(blockedComment);
+
+        // WHEN / THEN
+        assertThrows(ValidationException.class, () -> reviewQueueService.approve(COMMENT_ID));
+        verify(commentService, never()).unblockComment(any());
+    }
+
+    @Test
+    void approve_shouldTakeOverExpiredLease() {
+        // GIVEN
+        blockedComment.setLeasedBy(8L);
+        blockedComment.setLeaseExpiresAt(LocalDateTime.now().minusSeconds(1));
+        when(commentRepository.findByIdOrThrow(COMMENT_ID)).thenReturn(blockedComment);
+
+        // WHEN
+        reviewQueueService.approve(COMMENT_ID);
+
+        // THEN
+        verify(commentService).unblockComment(COMMENT_ID);
+    }
+}
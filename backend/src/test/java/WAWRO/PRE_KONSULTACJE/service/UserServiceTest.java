@@ -0,0 +1,115 @@
+package WAWRO.PRE_KONSULTACJE.service;
+
+import WAWRO.PRE_KONSULTACJE.config.UserProperties;
+import WAWRO.PRE_KONSULTACJE.mapper.UserMapper;
+import WAWRO.PRE_KONSULTACJE.model.entity.User;
+import WAWRO.PRE_KONSULTACJE.model.enums.Role;
+import WAWRO.PRE_KONSULTACJE.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    private static final String SUBJECT = "testowy@test.pl";
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private UserMapper userMapper;
+    @Mock
+    private AnalogUserResolver analogUserResolver;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UserService userService;
+    private User storedUser;
+
+    @BeforeEach
+    void setUp() {
+        UserProperties userProperties = new UserProperties();
+        userProperties.setDevSubject(SUBJECT);
+        userService = new UserService(userRepository, userMapper, analogUserResolver, userProperties,
+                transactionManager, new SimpleMeterRegistry());
+        storedUser = User.builder().id(1L).email(SUBJECT).firstName("Jan").lastName("Kowalski")
+                .role(Role.ADMIN).build();
+    }
+
+    @Test
+    void getLoggedUser_shouldQueryRepositoryOnlyOncePerSubject() {
+        // GIVEN
+        when(userRepository.getByEmail(SUBJECT)).thenReturn(Optional.of(storedUser));
+
+        // WHEN
+        User first = userService.getLoggedUser();
+        User second = userService.getLoggedUser();
+
+        // THEN
+        verify(userRepository, times(1)).getByEmail(SUBJECT);
+        assertEquals(1L, second.getId());
+        assertEquals("Kowalski", first.getLastName());
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void getCurrentUser_shouldCreateMissingUserWithSubjectAsEmail() {
+        // GIVEN
+        when(userRepository.getByEmail(SUBJECT)).thenReturn(Optional.empty());
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            user.setId(2L);
+            return user;
+        });
+
+        // WHEN
+        CurrentUser currentUser = userService.getCurrentUser();
+
+        // THEN
+        assertEquals(2L, currentUser.id());
+        verify(userRepository).saveAndFlush(argThat(user -> SUBJECT.equals(user.getEmail())));
+        verify(transactionManager).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW
+                        && !definition.isReadOnly()));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void getCurrentUser_shouldTakeSubjectFromHeaderWhenConfigured() {
+        // GIVEN
+        UserProperties userProperties = new UserProperties();
+        userProperties.setSubjectHeader("X-Load-Test-Subject");
+        userService = new UserService(userRepository, userMapper, analogUserResolver, userProperties,
+                transactionManager, new SimpleMeterRegistry());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Load-Test-Subject", "loadtest-user-7@test.pl");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        User loadTestUser = User.builder().id(7L).email("loadtest-user-7@test.pl").role(Role.IDENTIFIED_USER).build();
+        when(userRepository.getByEmail("loadtest-user-7@test.pl")).thenReturn(Optional.of(loadTestUser));
+
+        // WHEN
+        CurrentUser currentUser;
+        try {
+            currentUser = userService.getCurrentUser();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        // THEN
+        assertEquals(7L, currentUser.id());
+        verify(userRepository, never()).getByEmail(SUBJECT);
+    }
+}
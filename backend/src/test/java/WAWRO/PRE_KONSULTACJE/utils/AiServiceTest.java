@@ -0,0 +1,98 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import WAWRO.PRE_KONSULTACJE.config.AiServiceProperties;
+import WAWRO.PRE_KONSULTACJE.model.enums.SummaryType;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AiServiceTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private HttpServer server;
+    private SimpleMeterRegistry meterRegistry;
+    private AiService aiService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Answers only when the test ends, so every call stays in flight until its caller gives up.
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", exchange -> {
+            try {
+                release.await();
+                byte[] body = "{\"summary\":\"Streszczenie\"}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+
+        AiServiceProperties properties = new AiServiceProperties();
+        properties.setUrl("http://localhost:" + server.getAddress().getPort() + "/");
+        properties.getSummary().setMaxConcurrentCalls(1);
+        meterRegistry = new SimpleMeterRegistry();
+        aiService = new AiService(properties, new ModerationVerdictCache(properties, meterRegistry), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void summarize_shouldReturnPermitAndRecordCancelledCallWhenCallerGivesUp() {
+        // GIVEN
+        Disposable call = aiService.summarize(SummaryType.UST, "Projekt ustawy").subscribe();
+        assertEquals(0, summaryPermits());
+
+        // WHEN
+        call.dispose();
+
+        // THEN
+        assertEquals(1, summaryPermits());
+        assertEquals(1, meterRegistry.get("ai.service.calls").tag("outcome", "CANCELLED").timer().count());
+        assertNull(meterRegistry.find("ai.calls.rejected").counter());
+    }
+
+    @Test
+    void summarize_shouldNotTakePermitsFromModeration() {
+        // GIVEN
+        Disposable call = aiService.summarize(SummaryType.UST, "Projekt ustawy").subscribe();
+
+        // WHEN
+        AiServiceUnavailableException rejected = assertThrows(AiServiceUnavailableException.class,
+                () -> aiService.summarize(SummaryType.UST, "Drugi projekt").block());
+        CompletableFuture<String> verdict = aiService.validateCommentAsync("Komentarz");
+
+        // THEN
+        assertTrue(rejected.getMessage().contains("bulkhead"));
+        assertFalse(verdict.isDone());
+        assertEquals(31, meterRegistry.get("ai.bulkhead.available").tag("endpoint", "moderate").gauge().value());
+        assertNull(meterRegistry.find("ai.calls.rejected").tag("endpoint", "moderate").counter());
+        call.dispose();
+        verdict.cancel(true);
+    }
+
+    private double summaryPermits() {
+        return meterRegistry.get("ai.bulkhead.available").tag("endpoint", "summarize").gauge().value();
+    }
+}
@@ -0,0 +1,30 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalogIdentityTest {
+
+    @Test
+    void key_shouldIgnoreCaseWhitespaceAndAddressPunctuation() {
+        // GIVEN
+        AnalogIdentity typed = new AnalogIdentity("Jan", "Kowalski", "ul. Długa 5, Warszawa");
+        AnalogIdentity scanned = new AnalogIdentity("  JAN ", "kowalski", "ul Długa 5 Warszawa");
+
+        // THEN
+        assertEquals(typed.key(), scanned.key());
+        assertEquals(64, typed.key().length());
+    }
+
+    @Test
+    void key_shouldSeparateDifferentPeopleAndAddresses() {
+        // GIVEN
+        AnalogIdentity withoutAddress = new AnalogIdentity("Jan", "Kowalski", null);
+
+        // THEN
+        assertEquals(withoutAddress.key(), new AnalogIdentity("Jan", "Kowalski", " ").key());
+        assertNotEquals(withoutAddress.key(), new AnalogIdentity("Jan", "Kowalski", "Kraków").key());
+        assertNotEquals(withoutAddress.key(), new AnalogIdentity("Jank", "owalski", null).key());
+    }
+}
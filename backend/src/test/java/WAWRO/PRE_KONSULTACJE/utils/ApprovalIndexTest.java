@@ -0,0 +1,64 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import WAWRO.PRE_KONSULTACJE.event.ApprovalToggledEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApprovalIndexTest {
+
+    private ApprovalIndex approvalIndex;
+
+    @BeforeEach
+    void setUp() {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource();
+        approvalIndex = new ApprovalIndex(dataSource, new DataSourceTransactionManager(dataSource),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void shouldAnswerCountAndMembershipPerComment() {
+        // GIVEN
+        approvalIndex.onApprovalToggled(new ApprovalToggledEvent(1L, 10L, 100L, true));
+        approvalIndex.onApprovalToggled(new ApprovalToggledEvent(1L, 10L, 200L, true));
+        approvalIndex.onApprovalToggled(new ApprovalToggledEvent(1L, 11L, 100L, true));
+
+        // THEN
+        assertEquals(2, approvalIndex.count(10L));
+        assertTrue(approvalIndex.isApprovedBy(10L, 200L));
+        assertFalse(approvalIndex.isApprovedBy(11L, 200L));
+        assertEquals(0, approvalIndex.count(12L));
+    }
+
+    @Test
+    void shouldIgnoreRepeatedEventsAndDropEmptyBitmaps() {
+        // GIVEN
+        approvalIndex.onApprovalToggled(new ApprovalToggledEvent(1L, 10L, 100L, true));
+        approvalIndex.onApprovalToggled(new ApprovalToggledEvent(1L, 10L, 100L, true));
+
+        // WHEN
+        approvalIndex.onApprovalToggled(new ApprovalToggledEvent(1L, 10L, 100L, false));
+        approvalIndex.onApprovalToggled(new ApprovalToggledEvent(1L, 10L, 100L, false));
+
+        // THEN
+        assertEquals(0, approvalIndex.count(10L));
+        assertFalse(approvalIndex.isApprovedBy(10L, 100L));
+        assertEquals(0, approvalIndex.sizeInBytes());
+    }
+
+    @Test
+    void shouldReportMemoryPerMillionApprovals() {
+        // GIVEN
+        for (long user = 1; user <= 1_000; user++) {
+            approvalIndex.onApprovalToggled(new ApprovalToggledEvent(1L, 10L, user, true));
+        }
+
+        // THEN
+        assertTrue(approvalIndex.sizeInBytes() > 0);
+        assertEquals(approvalIndex.sizeInBytes() * 1_000d, approvalIndex.bytesPerMillionApprovals(), 0.001);
+    }
+}
@@ -0,0 +1,145 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    private MutableClock clock;
+    private List<String> transitions;
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-12-01T10:00:00Z"));
+        transitions = new ArrayList<>();
+        circuitBreaker = new CircuitBreaker(50, 4, 4, OPEN_DURATION, 1, clock,
+                (from, to) -> transitions.add(from + "->" + to));
+    }
+
+    @Test
+    void shouldStayClosedBelowMinimumCalls() {
+        // WHEN
+        failCalls(3);
+
+        // THEN
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void shouldOpenAndRejectWhenFailureRateReachesThreshold() {
+        // GIVEN
+        succeedCalls(2);
+
+        // WHEN
+        failCalls(2);
+
+        // THEN
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        assertEquals(List.of("CLOSED->OPEN"), transitions);
+    }
+
+    @Test
+    void shouldCloseAfterSuccessfulTrialCall() {
+        // GIVEN
+        failCalls(4);
+        clock.advance(OPEN_DURATION);
+
+        // WHEN
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onSuccess();
+
+        // THEN
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), transitions);
+    }
+
+    @Test
+    void shouldReopenWhenTrialCallFails() {
+        // GIVEN
+        failCalls(4);
+        clock.advance(OPEN_DURATION);
+
+        // WHEN
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onFailure();
+
+        // THEN
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void shouldReturnTrialPermitOfCancelledCall() {
+        // GIVEN
+        failCalls(4);
+        clock.advance(OPEN_DURATION);
+        assertTrue(circuitBreaker.tryAcquirePermission());
+
+        // WHEN
+        circuitBreaker.onCancelled();
+
+        // THEN
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    private void failCalls(int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(circuitBreaker.tryAcquirePermission());
+            circuitBreaker.onFailure();
+        }
+    }
+
+    private void succeedCalls(int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(circuitBreaker.tryAcquirePermission());
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommentTextNormalizerTest {
+
+    @Test
+    void normalize_shouldFoldCaseWhitespaceAndDiacritics() {
+        // GIVEN
+        String original = "Żółta łódź  na\tJeziorze ";
+
+        // THEN
+        assertEquals("zolta lodz na jeziorze", CommentTextNormalizer.normalize(original));
+        assertEquals(CommentTextNormalizer.normalize(original), CommentTextNormalizer.normalize("ZOLTA LODZ na jeziorze"));
+        assertEquals("", CommentTextNormalizer.normalize(null));
+    }
+
+    @Test
+    void normalize_shouldFoldCompatibilityCharacters() {
+        // THEN
+        assertEquals("fine 2", CommentTextNormalizer.normalize("ﬁne ₂"));
+    }
+}
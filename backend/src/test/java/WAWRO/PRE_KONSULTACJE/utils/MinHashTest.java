@@ -0,0 +1,37 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinHashTest {
+
+    private static final String CAMPAIGN = """
+            Jako mieszkaniec gminy stanowczo sprzeciwiam się projektowi, ponieważ ogranicza on prawa
+            właścicieli nieruchomości, nie przewiduje odszkodowań i został przygotowany bez rzetelnych
+            konsultacji ze społecznością lokalną. Wnoszę o wycofanie projektu i ponowne opracowanie
+            jego założeń wspólnie z mieszkańcami oraz organizacjami pozarządowymi.
+            """;
+
+    @Test
+    void signature_shouldIgnoreCasePunctuationAndWhitespace() {
+        assertArrayEquals(MinHash.signature("Nie zgadzam się z art. 5!"), MinHash.signature("  nie ZGADZAM się, z art 5 "));
+    }
+
+    @Test
+    void isNearDuplicate_shouldAcceptEditedCopiesAndRejectDifferentLetters() {
+        // GIVEN
+        int[] original = MinHash.signature(CAMPAIGN);
+        int[] edited = MinHash.signature(CAMPAIGN
+                .replace("stanowczo", "zdecydowanie")
+                .replace("lokalną", "gminy"));
+        int[] opposite = MinHash.signature("""
+                Jako mieszkaniec gminy popieram projekt, ponieważ porządkuje prawa właścicieli
+                nieruchomości i przewiduje odszkodowania. Proszę o szybkie uchwalenie ustawy.
+                """);
+
+        // THEN
+        assertTrue(MinHash.isNearDuplicate(original, edited), "similarity " + MinHash.similarity(original, edited));
+        assertFalse(MinHash.isNearDuplicate(original, opposite));
+    }
+}
@@ -0,0 +1,73 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import WAWRO.PRE_KONSULTACJE.config.AiServiceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModerationVerdictCacheTest {
+
+    private ModerationVerdictCache cache;
+    private AtomicInteger aiCalls;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ModerationVerdictCache(new AiServiceProperties(), new SimpleMeterRegistry());
+        aiCalls = new AtomicInteger();
+    }
+
+    @Test
+    void keyOf_shouldIgnoreCaseWhitespaceAndDiacritics() {
+        // GIVEN
+        String key = ModerationVerdictCache.keyOf("Nie zgadzam się z ustawą");
+
+        // THEN
+        assertEquals(key, ModerationVerdictCache.keyOf("  NIE zgadzam   się z\nustawą "));
+        assertEquals(key, ModerationVerdictCache.keyOf("Nie zgadzam sie z ustawa"));
+        assertNotEquals(key, ModerationVerdictCache.keyOf("Zgadzam się z ustawą"));
+    }
+
+    @Test
+    void get_shouldAnswerVariantsOfACachedCommentWithoutCallingAi() {
+        // WHEN
+        String first = cache.get("Nie zgadzam się z ustawą", answer("OK")).join();
+        String second = cache.get("NIE ZGADZAM SIE Z USTAWA", answer("BLOCK")).join();
+
+        // THEN
+        assertEquals("OK", first);
+        assertEquals("OK", second);
+        assertEquals(1, aiCalls.get());
+    }
+
+    @Test
+    void get_shouldNotKeepUnknownVerdictsOrFailures() {
+        // WHEN
+        String unknown = cache.get("Komentarz", answer("MAYBE")).join();
+        CompletableFuture<String> failed = cache.get("Komentarz", () -> {
+            aiCalls.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException("AI-service down"));
+        });
+        String recovered = cache.get("Komentarz", answer("REVIEW")).join();
+        String cached = cache.get("Komentarz", answer("OK")).join();
+
+        // THEN
+        assertEquals("MAYBE", unknown);
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals("REVIEW", recovered);
+        assertEquals("REVIEW", cached);
+        assertEquals(3, aiCalls.get());
+    }
+
+    private Supplier<CompletableFuture<String>> answer(String verdict) {
+        return () -> {
+            aiCalls.incrementAndGet();
+            return CompletableFuture.completedFuture(verdict);
+        };
+    }
+}
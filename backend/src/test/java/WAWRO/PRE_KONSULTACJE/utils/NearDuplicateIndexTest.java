@@ -0,0 +1,48 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearDuplicateIndexTest {
+
+    private static final String LETTER = """
+            Wnoszę o wycofanie projektu i ponowne opracowanie jego założeń wspólnie z mieszkańcami
+            oraz organizacjami pozarządowymi, ponieważ obecna wersja pomija ich uwagi.
+            """;
+
+    private NearDuplicateIndex index;
+
+    @BeforeEach
+    void setUp() {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource();
+        index = new NearDuplicateIndex(dataSource, new DataSourceTransactionManager(dataSource),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void findCluster_shouldReturnRepresentativeOfExactAndEditedCopies() {
+        // GIVEN
+        index.addAfterCommit(1L, MinHash.signature(LETTER), 10L);
+
+        // THEN
+        assertEquals(Long.valueOf(10L), index.findCluster(1L, MinHash.signature(LETTER.toUpperCase())));
+        assertEquals(Long.valueOf(10L), index.findCluster(1L, MinHash.signature(LETTER.replace("obecna", "aktualna"))));
+        assertNull(index.findCluster(1L, MinHash.signature("Popieram budowę nowej linii tramwajowej na Pradze.")));
+    }
+
+    @Test
+    void findCluster_shouldKeepConsultationsApartAndFirstRepresentative() {
+        // GIVEN
+        index.addAfterCommit(1L, MinHash.signature(LETTER), 10L);
+        index.addAfterCommit(1L, MinHash.signature(LETTER), 11L);
+
+        // THEN
+        assertEquals(Long.valueOf(10L), index.findCluster(1L, MinHash.signature(LETTER)));
+        assertNull(index.findCluster(2L, MinHash.signature(LETTER)));
+    }
+}
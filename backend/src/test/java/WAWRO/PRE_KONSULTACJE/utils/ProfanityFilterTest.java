@@ -0,0 +1,57 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfanityFilterTest {
+
+    private final ProfanityFilter profanityFilter = new ProfanityFilter();
+
+    @Test
+    void shouldPassNeutralComment() {
+        assertFalse(profanityFilter.containsProfanity("Proponuję doprecyzować art. 5 ust. 2 projektu ustawy."));
+    }
+
+    @Test
+    void shouldMatchPlainWordListEntry() {
+        assertEquals("kurwa", profanityFilter.findFirst("co za kurwa projekt"));
+    }
+
+    @Test
+    void shouldFoldPolishDiacritics() {
+        assertTrue(profanityFilter.containsProfanity("JEBAĆ TO"));
+        assertTrue(profanityFilter.containsProfanity("dupą"));
+    }
+
+    @Test
+    void shouldSeeThroughCommonObfuscation() {
+        assertTrue(profanityFilter.containsProfanity("k.u.r.w.a"));
+        assertTrue(profanityFilter.containsProfanity("kuuurwa"));
+        assertTrue(profanityFilter.containsProfanity("p1erd0l"));
+        assertTrue(profanityFilter.containsProfanity("сipa"));
+    }
+
+    @Test
+    void shouldNotMatchAcrossWords() {
+        assertFalse(profanityFilter.containsProfanity("ci pani"));
+    }
+
+    @Test
+    void shouldPassCleanWordsContainingAnEntry() {
+        assertFalse(profanityFilter.containsProfanity("Podsłuchujemy rozmowy, a potem ich wysłuchujemy."));
+        assertFalse(profanityFilter.containsProfanity("The principal participants were anticipated."));
+    }
+
+    @Test
+    void shouldStillMatchEntriesNextToAllowedStems() {
+        assertEquals("chuj", profanityFilter.findFirst("podsłuchujemy, chuj z tym"));
+        assertEquals("kurwa", profanityFilter.findFirst("wysłuchujkurwa"));
+        assertTrue(profanityFilter.containsProfanity("wypierdolić"));
+    }
+
+    @Test
+    void shouldHandleNull() {
+        assertNull(profanityFilter.findFirst(null));
+    }
+}
@@ -0,0 +1,31 @@
+package WAWRO.PRE_KONSULTACJE.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SequenceIdAllocatorTest {
+
+    @Test
+    void ids_shouldFillEachReservedBlockFromItsStart() {
+        // WHEN
+        long[] ids = SequenceIdAllocator.ids(List.of(51L, 301L), 52);
+
+        // THEN
+        assertEquals(51L, ids[0]);
+        assertEquals(100L, ids[49]);
+        assertEquals(301L, ids[50]);
+        assertEquals(302L, ids[51]);
+    }
+
+    @Test
+    void ids_shouldLeaveTheRestOfAPartialBlockUnused() {
+        // WHEN
+        long[] ids = SequenceIdAllocator.ids(List.of(1L), 3);
+
+        // THEN
+        assertArrayEquals(new long[]{1L, 2L, 3L}, ids);
+    }
+}